@@ -6,7 +6,7 @@ echo Creating target directory...
 if not exist target\classes mkdir target\classes
 
 echo Compiling Java files...
-javac -encoding UTF-8 -cp "lib/mysql-connector-java-8.0.33.jar" -d target/classes src/main/java/com/dictionary/*.java src/main/java/com/dictionary/client/*.java src/main/java/com/dictionary/server/*.java src/main/java/com/dictionary/database/*.java src/main/java/com/dictionary/model/*.java
+javac -encoding UTF-8 -cp "lib/mysql-connector-java-8.0.33.jar" -d target/classes src/main/java/com/dictionary/*.java src/main/java/com/dictionary/client/*.java src/main/java/com/dictionary/server/*.java src/main/java/com/dictionary/database/*.java src/main/java/com/dictionary/model/*.java src/main/java/com/dictionary/protocol/*.java
 
 if %ERRORLEVEL% EQU 0 (
     echo Build successful!
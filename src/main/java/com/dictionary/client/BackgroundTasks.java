@@ -0,0 +1,105 @@
+package com.dictionary.client;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lớp chạy nền cho DictionaryClientGUI: việc chậm (mạng, đĩa, giải mã ảnh) không chạy trên EDT,
+ * kết quả được đưa về EDT để vẽ. Mỗi Channel ứng với một vùng giao diện (gợi ý, bảng kết quả,
+ * chi tiết...) và chỉ hiển thị kết quả của việc mới nhất: gửi việc mới thì việc cũ bị hủy
+ * (future của DictionaryClient báo CANCEL cho server), kết quả cũ về muộn cũng bị bỏ.
+ */
+final class BackgroundTasks {
+    // Việc chặn: API đồng bộ của client (kết nối, PING), đọc và thu nhỏ ảnh
+    private final ExecutorService worker;
+
+    BackgroundTasks() {
+        AtomicInteger counter = new AtomicInteger();
+        this.worker = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "dictionary-gui-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    Channel channel() {
+        return new Channel();
+    }
+
+    /** Chạy việc chặn trên thread nền, không cần kết quả */
+    void execute(Runnable task) {
+        worker.execute(task);
+    }
+
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /** Một vùng giao diện; mọi phương thức gọi trên EDT */
+    final class Channel {
+        private long generation;
+        private CompletableFuture<?> current;
+
+        /**
+         * Bắt đầu việc bất đồng bộ do start tạo (start chạy ngay trên EDT nên không được chặn).
+         * onResult/onError chạy trên EDT và chỉ khi đây vẫn là việc mới nhất của kênh.
+         */
+        <T> void submit(Supplier<CompletableFuture<T>> start, Consumer<T> onResult, Consumer<Throwable> onError) {
+            cancel();
+            long mine = generation;
+            CompletableFuture<T> future;
+            try {
+                future = start.get();
+            } catch (RuntimeException e) {
+                onError.accept(e);
+                return;
+            }
+            current = future;
+            future.whenComplete((value, failure) -> SwingUtilities.invokeLater(() -> {
+                if (mine != generation) {
+                    return;
+                }
+                current = null;
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                if (cause == null) {
+                    onResult.accept(value);
+                } else if (!(cause instanceof CancellationException)) {
+                    onError.accept(cause);
+                }
+            }));
+        }
+
+        /** Như submit cho việc chặn: work chạy trên thread nền */
+        <T> void submitBlocking(Callable<T> work, Consumer<T> onResult, Consumer<Throwable> onError) {
+            submit(() -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return work.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, worker), onResult, onError);
+        }
+
+        /** Bỏ việc đang chạy (nếu có): kết quả của nó sẽ không được hiển thị */
+        void cancel() {
+            generation++;
+            if (current != null) {
+                current.cancel(true);
+                current = null;
+            }
+        }
+
+        boolean isBusy() {
+            return current != null;
+        }
+    }
+}
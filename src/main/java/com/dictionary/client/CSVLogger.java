@@ -7,16 +7,28 @@ import java.io.FileOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Ghi lịch sử tra cứu ra file CSV. Việc ghi đĩa chạy trên một thread nền riêng (giữ đúng thứ tự
+ * dòng) để giao diện không phải chờ đĩa.
+ */
 public class CSVLogger {
     private static final String CSV_FILE = "search_history.csv";
     private static final String CSV_HEADER = "Thời gian,Từ tìm kiếm,Hướng dịch,Từ tiếng Anh,Từ loại,Phiên âm,Nghĩa tiếng Việt,Định nghĩa,Ví dụ\n";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     private static CSVLogger instance;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "dictionary-csv-log");
+        t.setDaemon(true);
+        return t;
+    });
     
     private CSVLogger() {
-        initializeCSVFile();
+        writer.execute(this::initializeCSVFile);
     }
     
     public static synchronized CSVLogger getInstance() {
@@ -42,10 +54,15 @@ public class CSVLogger {
         }
     }
     
+    /** Ghi một dòng (bất đồng bộ); thời gian lấy lúc gọi */
     public void logSearch(String searchTerm, String direction, Word word) {
+        String timestamp = LocalDateTime.now().format(DATE_FORMATTER);
+        writer.execute(() -> appendLine(timestamp, searchTerm, direction, word));
+    }
+
+    private void appendLine(String timestamp, String searchTerm, String direction, Word word) {
         try (OutputStreamWriter writer = new OutputStreamWriter(
                 new FileOutputStream(CSV_FILE, true), StandardCharsets.UTF_8)) {
-            String timestamp = LocalDateTime.now().format(DATE_FORMATTER);
             String csvLine = String.format("%s,\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\"\n",
                 timestamp,
                 escapeCSV(searchTerm),
@@ -1,11 +1,38 @@
 package com.dictionary.client;
 
+import com.dictionary.model.Suggestion;
 import com.dictionary.model.Word;
+import com.dictionary.model.WordPage;
+import com.dictionary.protocol.BinaryCodec;
+import com.dictionary.protocol.Compression;
+import com.dictionary.protocol.TextCodec;
+import com.dictionary.protocol.UnixDomainSockets;
 
 import java.io.*;
 import java.net.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * TCP Client cho ứng dụng từ điển Anh-Việt
@@ -13,31 +40,466 @@ import java.util.List;
 public class DictionaryClient {
     private static final String SERVER_HOST = "localhost";
     private static final int SERVER_PORT = 12345;
-    
+    // Server cùng máy: kết nối qua Unix domain socket này (-Ddictionary.client.unixSocket=/đường/dẫn),
+    // không được thì quay về TCP
+    private static final String UNIX_SOCKET = System.getProperty("dictionary.client.unixSocket", "");
+    // Tắt pipelining (quay về hỏi-đáp tuần tự) bằng -Ddictionary.client.pipeline=false
+    private static final boolean PIPELINE_ENABLED =
+            Boolean.parseBoolean(System.getProperty("dictionary.client.pipeline", "true"));
+    // Tắt khung nhị phân (giữ giao thức văn bản) bằng -Ddictionary.client.binary=false
+    private static final boolean BINARY_ENABLED =
+            Boolean.parseBoolean(System.getProperty("dictionary.client.binary", "true"));
+    // Thuật toán nén đề nghị cho phản hồi lớn (DEFLATE, GZIP hoặc none) qua -Ddictionary.client.compression
+    private static final String COMPRESSION_REQUESTED =
+            System.getProperty("dictionary.client.compression", Compression.DEFLATE).toUpperCase();
+    private static final int HANDSHAKE_TIMEOUT_MS = 2000;
+    // Số khung ROWS được đọc trước khi người dùng xử lý kịp. Thread đọc không bao giờ chờ hàng đợi này
+    // (mọi phản hồi khác sẽ kẹt sau nó): đầy thì luồng bị hủy và người dùng nhận IOException
+    private static final int STREAM_QUEUE_CHUNKS = Integer.getInteger("dictionary.client.streamQueueChunks", 64);
+    // Số từ tối đa mỗi yêu cầu MSEARCH; danh sách dài hơn được chia nhiều lượt
+    private static final int MSEARCH_BATCH_SIZE = 500;
+    // Hạn chót server dành cho gợi ý và tra cứu khi gõ phím (ms); quá hạn thì server bỏ truy vấn
+    private static final long SUGGEST_DEADLINE_MS = Long.getLong("dictionary.client.suggestDeadlineMs", 1000L);
+    private static final long SEARCH_DEADLINE_MS = Long.getLong("dictionary.client.searchDeadlineMs", 5000L);
+    private static final String[] CANCELLED = {"CANCELLED", "Đã hủy"};
+    private static final String INVALID_RESPONSE = "Phản hồi không hợp lệ";
+    // Cache kết quả tra cứu (số mục, 0 = tắt) và tuổi thọ mỗi mục; chỉ bật khi server gửi INVALIDATE
+    private static final int CACHE_ENTRIES = Integer.getInteger("dictionary.client.cacheEntries", 500);
+    private static final long CACHE_TTL_MS = Long.getLong("dictionary.client.cacheTtlMs", 10 * 60 * 1000L);
+    // Thời gian chờ mặc định của các phương thức ...Async (ms); cũng là hạn chót gửi kèm cho server
+    private static final long ASYNC_TIMEOUT_MS = Long.getLong("dictionary.client.asyncTimeoutMs", 10000L);
+    // isConnected() chỉ gửi PING khi kết nối im lặng (không phản hồi, không HEARTBEAT) quá lâu như vậy (ms).
+    // Mặc định lớn hơn chu kỳ HEARTBEAT của server nên phiên có HEARTBEAT gần như không phải PING
+    private static final long PROBE_IDLE_MS = Long.getLong("dictionary.client.probeIdleMs", 60 * 1000L);
+    private static final int PROBE_TIMEOUT_MS = 1000;
+    // Mất kết nối thì tự kết nối lại (tắt bằng -Ddictionary.client.autoReconnect=false), chờ theo ReconnectBackoff
+    private static final boolean AUTO_RECONNECT =
+            Boolean.parseBoolean(System.getProperty("dictionary.client.autoReconnect", "true"));
+    private static final long RECONNECT_BASE_MS = Long.getLong("dictionary.client.reconnectBaseMs", 1000L);
+    private static final long RECONNECT_MAX_MS = Long.getLong("dictionary.client.reconnectMaxMs", 30 * 1000L);
+    // Lệnh chỉ đọc (SEARCH*, SUGGEST, MSEARCH, GET_ALL) gặp lỗi kết nối được gửi lại tối đa chừng này lần,
+    // mỗi lần chờ kết nối lại tối đa RETRY_WAIT_MS (phương thức đồng bộ)
+    private static final int READ_RETRIES = Integer.getInteger("dictionary.client.readRetries", 2);
+    private static final long RETRY_WAIT_MS = Long.getLong("dictionary.client.retryWaitMs", 5000L);
+
     private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
+    private InputStream in;
+    private OutputStream out;
     private final Object ioLock = new Object();
+    private volatile boolean binary;
+    private volatile String compression;
+
+    // Chế độ pipelining: nhiều yêu cầu cùng chờ trên một socket, phân phối phản hồi theo mã
+    private volatile boolean pipelined;
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final Map<Long, CompletableFuture<String[]>> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<Long, BlockingQueue<String[]>> activeStreams = new ConcurrentHashMap<>();
+    private Thread readerThread;
+    // Server nhận DEADLINE|ms và CANCEL|id; mã các yêu cầu gõ phím đang chờ để cancelInteractive() hủy
+    private volatile boolean cancellable;
+    private final Set<Long> interactiveRequests = ConcurrentHashMap.newKeySet();
+    // Kết nối mà server đã báo DRAIN (đang dừng): lần gửi kế tiếp chuyển sang kết nối mới
+    private volatile Socket drainingSocket;
+    // Mã yêu cầu đầu tiên của kết nối hiện tại; mã nhỏ hơn thuộc các kết nối trước
+    private volatile long connectionFirstId;
+    private final LookupCache cache = CACHE_ENTRIES > 0 ? new LookupCache(CACHE_ENTRIES, CACHE_TTL_MS) : null;
+    // Server báo INVALIDATE|từ khi dữ liệu đổi: chỉ khi đó cache mới được dùng
+    private volatile boolean invalidationPushes;
+    // Thread I/O của API bất đồng bộ: gửi yêu cầu, kết nối lại khi server dừng, và chờ phản hồi
+    // khi không pipelining, để thread gọi (vd. EDT) không bao giờ bị chặn
+    private final ExecutorService asyncIo;
+    // Hoàn thành future trả cho người gọi ở đây chứ không trên thread đọc: hàm nối tiếp (thenApply...)
+    // chạy chậm hay gọi lại API đồng bộ cũng không làm nghẽn việc nhận phản hồi
+    private final ExecutorService callbacks;
+    // Sức khỏe kết nối suy ra từ lưu lượng: lần cuối nhận được dữ liệu từ server, và lỗi I/O trên kết nối hiện tại
+    private volatile long lastReceivedNanos;
+    private volatile boolean broken;
+    private final AtomicLong healthChecks = new AtomicLong();
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong failedProbes = new AtomicLong();
+    private final AtomicLong probeNanos = new AtomicLong();
+    // Đã gọi disconnect(): không tự kết nối lại nữa
+    private volatile boolean closed;
+    private final ReconnectBackoff backoff = new ReconnectBackoff(RECONNECT_BASE_MS, RECONNECT_MAX_MS);
+    private final ScheduledExecutorService reconnector;
+    private final Object reconnectLock = new Object();
+    private boolean reconnectScheduled;
+    // Hoàn thành khi kết nối lại xong; thay bằng future mới mỗi lần mất kết nối
+    private volatile CompletableFuture<Void> reconnected = CompletableFuture.completedFuture(null);
 
     public DictionaryClient() throws IOException {
-        connect();
+        AtomicInteger counter = new AtomicInteger();
+        this.asyncIo = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "dictionary-client-io");
+            t.setDaemon(true);
+            return t;
+        });
+        this.callbacks = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "dictionary-client-callback-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dictionary-client-reconnect");
+            t.setDaemon(true);
+            return t;
+        });
+        // Lần kết nối đầu thất bại thì người gọi nhận IOException, không tự kết nối lại
+        closed = true;
+        try {
+            connect();
+        } catch (IOException e) {
+            shutdownExecutors();
+            throw e;
+        }
+        closed = false;
     }
 
     private void connect() throws IOException {
-        socket = new Socket(SERVER_HOST, SERVER_PORT);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
-        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
-        System.out.println("Đã kết nối đến server");
+        connectionFirstId = nextRequestId.get() + 1;
+        boolean unix = false;
+        if (!UNIX_SOCKET.isEmpty()) {
+            try {
+                socket = UnixDomainSockets.connect(UNIX_SOCKET);
+                unix = true;
+            } catch (IOException e) {
+                System.err.println("Không kết nối được qua " + UNIX_SOCKET + " (" + e.getMessage() + "), dùng TCP");
+            }
+        }
+        if (!unix) {
+            socket = new Socket(SERVER_HOST, SERVER_PORT);
+        }
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+        pipelined = false;
+        binary = false;
+        compression = null;
+        cancellable = false;
+        invalidationPushes = false;
+        if (cache != null) {
+            // Thông báo INVALIDATE trong lúc chưa kết nối đã bị lỡ
+            cache.clear();
+        }
+        broken = false;
+        if (PIPELINE_ENABLED || BINARY_ENABLED || Compression.isSupported(COMPRESSION_REQUESTED)) {
+            try {
+                negotiate();
+            } catch (IOException e) {
+                // Socket đã mở nhưng bắt tay thất bại (vd. server BUSY): không dùng được
+                markBroken();
+                try {
+                    socket.close();
+                } catch (IOException ignore) { }
+                throw e;
+            }
+        }
+        lastReceivedNanos = System.nanoTime();
+        System.out.println("Đã kết nối đến server" + (unix ? " (unix socket)" : "")
+                + (pipelined ? " (pipelining)" : "") + (binary ? " (nhị phân)" : "")
+                + (compression != null ? " (nén " + compression + ")" : ""));
+    }
+
+    /** Bắt tay HELLO; server cũ trả ERROR thì giữ chế độ hỏi-đáp tuần tự bằng văn bản */
+    private void negotiate() throws IOException {
+        List<String> caps = new ArrayList<>();
+        if (PIPELINE_ENABLED) {
+            caps.add("PIPELINE");
+            // Chỉ thread đọc của chế độ pipelining mới nhận được HEARTBEAT/DRAIN do server chủ động gửi
+            caps.add("HEARTBEAT");
+            caps.add("DRAIN");
+            if (cache != null) caps.add("INVALIDATE");
+        }
+        if (BINARY_ENABLED) caps.add(BinaryCodec.CAPABILITY);
+        if (Compression.isSupported(COMPRESSION_REQUESTED)) caps.add(COMPRESSION_REQUESTED);
+        caps.add("CANCEL");
+
+        String response;
+        synchronized (ioLock) {
+            TextCodec.writeLine(out, "HELLO|" + String.join(",", caps));
+            out.flush();
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            try {
+                response = TextCodec.readLine(in);
+            } catch (SocketTimeoutException e) {
+                throw new IOException("Server không phản hồi bắt tay");
+            } finally {
+                socket.setSoTimeout(0);
+            }
+        }
+        if (response == null) {
+            throw new IOException("Server đã ngắt kết nối");
+        }
+        if (response.startsWith("BUSY|")) {
+            throw new IOException("Server đang quá tải, thử lại sau " + response.substring(5) + " ms");
+        }
+        if (!response.startsWith("HELLO|")) {
+            return;
+        }
+        List<String> accepted = Arrays.asList(response.substring(6).split(","));
+        binary = accepted.contains(BinaryCodec.CAPABILITY);
+        cancellable = accepted.contains("CANCEL");
+        invalidationPushes = accepted.contains("INVALIDATE");
+        if (accepted.contains(COMPRESSION_REQUESTED)) {
+            compression = COMPRESSION_REQUESTED;
+        }
+        if (accepted.contains("PIPELINE")) {
+            pipelined = true;
+            InputStream reader = in;
+            readerThread = new Thread(() -> readLoop(reader), "dictionary-client-reader");
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+    }
+
+    /** Thread đọc duy nhất: hoàn thành future của từng yêu cầu theo mã trong phản hồi */
+    private void readLoop(InputStream reader) {
+        IOException failure = new IOException("Server đã ngắt kết nối");
+        try {
+            while (true) {
+                long id;
+                String[] fields;
+                if (binary) {
+                    BinaryCodec.Frame frame = BinaryCodec.readFrame(reader, compression);
+                    if (frame == null) break;
+                    id = frame.tag;
+                    fields = frame.fields;
+                } else {
+                    String line = TextCodec.readLine(reader);
+                    if (line == null) break;
+                    int sep = line.indexOf('|');
+                    if (!line.startsWith("#") || sep < 0) {
+                        id = 0;
+                        fields = splitLine(line);
+                    } else {
+                        try {
+                            id = Long.parseLong(line.substring(1, sep));
+                        } catch (NumberFormatException e) {
+                            System.err.println("Mã phản hồi không hợp lệ: " + line);
+                            continue;
+                        }
+                        fields = splitLine(line.substring(sep + 1));
+                    }
+                }
+                if (reader == in) {
+                    lastReceivedNanos = System.nanoTime();
+                }
+                boolean valid = isValidResponse(fields);
+                if (id == 0) {
+                    if (valid) {
+                        onPush(reader, fields);
+                    } else {
+                        System.err.println("Bỏ qua thông điệp không mã không hợp lệ");
+                    }
+                    continue;
+                }
+                BlockingQueue<String[]> stream = activeStreams.get(id);
+                if (stream != null) {
+                    if (!stream.offer(valid ? fields : new String[]{"ERROR", INVALID_RESPONSE})) {
+                        abortStream(id, stream);
+                    }
+                    continue;
+                }
+                CompletableFuture<String[]> future = pendingRequests.remove(id);
+                if (future != null) {
+                    if (valid) {
+                        future.complete(fields);
+                    } else {
+                        future.completeExceptionally(new IOException(INVALID_RESPONSE));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            // Kết nối cũ kết thúc sau khi đã kết nối lại thì không đụng tới trạng thái mới
+            // (so sánh dưới ioLock vì kết nối lại thay in dưới ioLock)
+            boolean current;
+            synchronized (ioLock) {
+                current = reader == in;
+                if (current) {
+                    pipelined = false;
+                    invalidationPushes = false;
+                    markBroken();
+                }
+            }
+            if (current) {
+                failPending(failure);
+            } else {
+                // Kết nối cũ (đã chuyển sang kết nối mới vì server dừng): chỉ các yêu cầu gửi trên nó
+                failPending(failure, connectionFirstId);
+            }
+        }
+    }
+
+    /** Thông điệp không mã do server chủ động gửi (HEARTBEAT, DRAIN, INVALIDATE) */
+    private void onPush(InputStream reader, String[] fields) {
+        String type = fields.length > 0 ? fields[0] : "";
+        if ("HEARTBEAT".equals(type)) {
+            answerHeartbeat();
+        } else if ("DRAIN".equals(type)) {
+            // Kết nối lại ở lần gửi kế tiếp; các yêu cầu đang chờ vẫn nhận phản hồi trên kết nối này
+            if (reader == in) {
+                drainingSocket = socket;
+                System.out.println("Server báo dừng: " + field(fields, 1));
+            }
+        } else if ("INVALIDATE".equals(type)) {
+            if (cache != null) {
+                cache.invalidate(field(fields, 1));
+            }
+        } else {
+            System.err.println("Bỏ qua phản hồi không có mã: " + String.join("|", fields));
+        }
+    }
+
+    /** Server hỏi phiên còn sống không (sau một lúc im lặng): trả lời để không bị đóng */
+    private void answerHeartbeat() {
+        synchronized (ioLock) {
+            try {
+                writeRequest(0, new String[]{"HEARTBEAT"});
+            } catch (IOException e) {
+                // Kết nối hỏng: vòng đọc sẽ nhận lỗi và báo cho các yêu cầu đang chờ
+            }
+        }
     }
 
-    /** Gửi request và nhận response theo cách đồng bộ để tránh chồng chéo I/O */
-    private String send(String request) throws IOException {
+    private void failPending(IOException failure) {
+        failPending(failure, Long.MAX_VALUE);
+    }
+
+    /** Báo lỗi cho các yêu cầu có mã nhỏ hơn beforeId (mã tăng dần nên đó là các yêu cầu gửi trước) */
+    private void failPending(IOException failure, long beforeId) {
+        for (Long id : pendingRequests.keySet()) {
+            if (id >= beforeId) continue;
+            CompletableFuture<String[]> future = pendingRequests.remove(id);
+            if (future != null) {
+                future.completeExceptionally(failure);
+            }
+        }
+        for (Map.Entry<Long, BlockingQueue<String[]>> stream : activeStreams.entrySet()) {
+            if (stream.getKey() >= beforeId) continue;
+            stream.getValue().clear();
+            stream.getValue().offer(new String[]{"ERROR", failure.getMessage()});
+        }
+    }
+
+    /** Ghi một yêu cầu theo định dạng đã thỏa thuận (gọi khi đang giữ ioLock) */
+    private void writeRequest(long id, String[] request) throws IOException {
+        try {
+            if (binary) {
+                BinaryCodec.writeFrame(out, id, request);
+            } else {
+                String line = TextCodec.join(request);
+                TextCodec.writeLine(out, id != 0 ? "#" + id + "|" + line : line);
+            }
+            out.flush();
+        } catch (IOException e) {
+            markBroken();
+            throw e;
+        }
+    }
+
+    /**
+     * Đọc một phản hồi không có mã (chế độ hỏi-đáp tuần tự, gọi khi đang giữ ioLock). Lỗi đọc, kể cả
+     * hết thời gian chờ (phản hồi đến muộn sẽ làm lệch các lượt sau), đánh dấu kết nối hỏng.
+     */
+    private String[] readResponse() throws IOException {
+        String[] fields;
+        try {
+            if (binary) {
+                BinaryCodec.Frame frame = BinaryCodec.readFrame(in, compression);
+                fields = frame == null ? null : frame.fields;
+            } else {
+                String line = TextCodec.readLine(in);
+                fields = line == null ? null : splitLine(line);
+            }
+            if (fields != null && !isValidResponse(fields)) {
+                throw new IOException(INVALID_RESPONSE);
+            }
+        } catch (IOException e) {
+            markBroken();
+            throw e;
+        }
+        if (fields == null) {
+            markBroken();
+        } else {
+            lastReceivedNanos = System.nanoTime();
+        }
+        return fields;
+    }
+
+    /**
+     * Mọi phản hồi phải có trường trạng thái khác null; khung nhị phân hợp lệ về cú pháp vẫn có thể
+     * không có trường nào hoặc có trường null, nên kiểm tra một lần ở đây thay vì ở từng chỗ đọc response[0].
+     */
+    private static boolean isValidResponse(String[] fields) {
+        return fields.length > 0 && fields[0] != null;
+    }
+
+    /** Tách dòng văn bản thành các trường, giải nén trước nếu server gửi COMPRESSED|... */
+    private static String[] splitLine(String line) throws IOException {
+        String[] fields = line.split("\\|", -1);
+        if (fields.length > 0 && Compression.TEXT_MARKER.equals(fields[0])) {
+            fields = Compression.decompressLine(fields).split("\\|", -1);
+        }
+        return fields;
+    }
+
+    /** Gửi yêu cầu có mã, không chờ; future hoàn thành khi thread đọc nhận phản hồi tương ứng */
+    private CompletableFuture<String[]> sendTagged(String... request) {
+        return sendTagged(nextRequestId.incrementAndGet(), request);
+    }
+
+    private CompletableFuture<String[]> sendTagged(long id, String... request) {
+        CompletableFuture<String[]> future = new CompletableFuture<>();
+        pendingRequests.put(id, future);
+        IOException failure = null;
+        synchronized (ioLock) {
+            try {
+                writeRequest(id, request);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null || !pipelined) {
+            pendingRequests.remove(id);
+            future.completeExceptionally(failure != null ? failure : new IOException("Kết nối đã bị đóng"));
+        }
+        return future;
+    }
+
+    private String[] await(CompletableFuture<String[]> future, long timeoutMs) throws IOException {
+        try {
+            return timeoutMs > 0 ? future.get(timeoutMs, TimeUnit.MILLISECONDS) : future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IOException("Hết thời gian chờ phản hồi");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị ngắt khi chờ phản hồi");
+        }
+    }
+
+    /** Gửi request và nhận response (danh sách trường) theo cách đồng bộ để tránh chồng chéo I/O */
+    private String[] send(String... request) throws IOException {
+        return exchange(() -> sendOnce(request));
+    }
+
+    private String[] sendOnce(String... request) throws IOException {
+        if (pipelined) {
+            if (socket == null || socket.isClosed()) {
+                throw new IOException("Kết nối đã bị đóng");
+            }
+            return await(sendTagged(request), 0);
+        }
         synchronized (ioLock) {
             if (socket == null || socket.isClosed()) {
                 throw new IOException("Kết nối đã bị đóng");
             }
-            out.println(request);
-            String response = in.readLine();
+            writeRequest(0, request);
+            String[] response = readResponse();
             if (response == null) {
                 throw new IOException("Server đã ngắt kết nối");
             }
@@ -45,7 +507,495 @@ public class DictionaryClient {
         }
     }
 
+    /** Một lượt gửi và nhận phản hồi, chạy lại được trên kết nối mới */
+    private interface Exchange {
+        String[] run() throws IOException;
+    }
+
+    /**
+     * Server đang dừng (đã báo DRAIN, hoặc trả DRAINING cho yêu cầu này) thì chuyển sang kết nối mới;
+     * DRAINING nghĩa là yêu cầu chưa được thực hiện nên gửi lại một lần là an toàn với mọi lệnh.
+     */
+    private String[] exchange(Exchange exchange) throws IOException {
+        checkConnected();
+        Socket draining = drainingSocket;
+        if (draining != null) {
+            reconnectAfterDrain(draining);
+        }
+        Socket used = socket;
+        String[] response = exchange.run();
+        if ("DRAINING".equals(response[0])) {
+            reconnectAfterDrain(used);
+            response = exchange.run();
+        }
+        return checkBusy(response);
+    }
+
+    /**
+     * Mở kết nối mới thay cho old. Kết nối pipelining cũ không bị đóng: thread đọc của nó vẫn nhận
+     * phản hồi cho các yêu cầu đang chờ cho tới khi server làm nốt và tự đóng.
+     */
+    private void reconnectAfterDrain(Socket old) throws IOException {
+        synchronized (ioLock) {
+            if (socket != old) return;
+            boolean oldPipelined = pipelined;
+            System.out.println("Server đang dừng, chuyển sang kết nối mới");
+            connect();
+            if (drainingSocket == old) {
+                drainingSocket = null;
+            }
+            if (!oldPipelined) {
+                try {
+                    old.close();
+                } catch (IOException ignore) { }
+            }
+        }
+    }
+
+    /** Đang mất kết nối (chờ kết nối lại): báo lỗi ngay thay vì ghi vào socket đã hỏng */
+    private void checkConnected() throws IOException {
+        if (broken) {
+            throw new IOException(closed ? "Đã ngắt kết nối"
+                    : AUTO_RECONNECT ? "Mất kết nối đến server, đang kết nối lại" : "Mất kết nối đến server");
+        }
+    }
+
+    /** Kết nối hiện tại hỏng (lỗi I/O, server đóng): hẹn lần kết nối lại đầu tiên */
+    private void markBroken() {
+        if (AUTO_RECONNECT && !closed) {
+            synchronized (reconnectLock) {
+                // Tạo future mới trước khi báo hỏng để ai thấy broken cũng chờ đúng lần kết nối lại này
+                if (reconnected.isDone()) {
+                    reconnected = new CompletableFuture<>();
+                }
+                broken = true;
+                if (reconnectScheduled) {
+                    return;
+                }
+                reconnectScheduled = true;
+            }
+            scheduleReconnect();
+        } else {
+            broken = true;
+        }
+    }
+
+    private void scheduleReconnect() {
+        long delay = backoff.nextDelayMs();
+        System.err.println("Mất kết nối đến server, thử kết nối lại sau " + delay + " ms");
+        try {
+            reconnector.schedule(this::tryReconnect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignore) {
+            // Client đã đóng
+        }
+    }
+
+    /** Chạy trên thread kết nối lại; thất bại thì hẹn lần sau với thời gian chờ dài hơn */
+    private void tryReconnect() {
+        synchronized (ioLock) {
+            if (closed) {
+                synchronized (reconnectLock) {
+                    reconnectScheduled = false;
+                }
+                return;
+            }
+            // broken == false: đã kết nối lại theo đường khác (vd. sau DRAIN)
+            if (broken) {
+                try {
+                    if (socket != null) socket.close();
+                } catch (IOException ignore) { }
+                try {
+                    connect();
+                } catch (IOException e) {
+                    System.err.println("Không thể kết nối lại: " + e.getMessage());
+                    scheduleReconnect();
+                    return;
+                }
+            }
+        }
+        backoff.reset();
+        CompletableFuture<Void> waiting;
+        synchronized (reconnectLock) {
+            reconnectScheduled = false;
+            waiting = reconnected;
+        }
+        waiting.complete(null);
+    }
+
+    /** Một lần đọc chạy lại được (gửi lệnh chỉ đọc, hoặc đọc cả luồng vào danh sách làm lại từ đầu) */
+    private interface Read<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Lệnh chỉ đọc nên gửi lại là an toàn: lỗi vì mất kết nối thì chờ kết nối lại (tối đa RETRY_WAIT_MS)
+     * và thử lại, tối đa READ_RETRIES lần. Lỗi khác (BUSY, hết thời gian chờ...) trả về ngay.
+     */
+    private <T> T withRetry(Read<T> read) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return read.run();
+            } catch (IOException e) {
+                if (attempt >= READ_RETRIES || !AUTO_RECONNECT || !broken || closed) {
+                    throw e;
+                }
+                try {
+                    reconnected.get(RETRY_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException waitFailed) {
+                    throw e;
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private String[] sendRead(String... request) throws IOException {
+        return withRetry(() -> send(request));
+    }
+
+    private String[] sendInteractiveRead(long deadlineMs, String... request) throws IOException {
+        return withRetry(() -> sendInteractive(deadlineMs, request));
+    }
+
+    /**
+     * Yêu cầu phát sinh khi gõ phím: server bỏ truy vấn sau deadlineMs, và cancelInteractive()
+     * hủy được khi người dùng gõ tiếp. Kết quả bị hủy/hết hạn là CANCELLED|lý do.
+     * Server cũ (không nhận CANCEL) thì gửi như yêu cầu thường.
+     */
+    private String[] sendInteractive(long deadlineMs, String... request) throws IOException {
+        return exchange(() -> sendInteractiveOnce(deadlineMs, request));
+    }
+
+    private String[] sendInteractiveOnce(long deadlineMs, String... request) throws IOException {
+        if (!cancellable) {
+            return sendOnce(request);
+        }
+        String[] deadlined = withDeadline(deadlineMs, request);
+        if (!pipelined) {
+            return sendOnce(deadlined);
+        }
+        if (socket == null || socket.isClosed()) {
+            throw new IOException("Kết nối đã bị đóng");
+        }
+        long id = nextRequestId.incrementAndGet();
+        interactiveRequests.add(id);
+        try {
+            return await(sendTagged(id, deadlined), 0);
+        } finally {
+            interactiveRequests.remove(id);
+        }
+    }
+
+    private static String[] withDeadline(long deadlineMs, String[] request) {
+        String[] deadlined = new String[request.length + 2];
+        deadlined[0] = "DEADLINE";
+        deadlined[1] = String.valueOf(deadlineMs);
+        System.arraycopy(request, 0, deadlined, 2, request.length);
+        return deadlined;
+    }
+
+    /**
+     * Gửi không chặn: việc gửi chạy trên thread I/O, future hoàn thành bằng phản hồi (đã qua checkBusy)
+     * hoặc lỗi IOException; quá timeoutMs thì lỗi TimeoutException. Khi future kết thúc trước phản hồi
+     * (hết giờ, cancel()), yêu cầu bị bỏ và server được báo CANCEL|id để dừng truy vấn.
+     */
+    private CompletableFuture<String[]> sendAsync(long timeoutMs, String... request) {
+        CompletableFuture<String[]> result = new CompletableFuture<>();
+        AtomicLong sentId = new AtomicLong();
+        result.whenComplete((response, failure) -> abandon(sentId.get()));
+        try {
+            asyncIo.execute(() -> sendAsyncOnce(result, sentId, timeoutMs, request, true, READ_RETRIES));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("Client đã đóng"));
+        }
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Chạy trên thread I/O; DRAINING thì kết nối lại và gửi lại một lần như exchange(). Các lệnh bất đồng bộ
+     * đều chỉ đọc nên mất kết nối thì chờ kết nối lại và gửi lại như withRetry (còn retries lần).
+     */
+    private void sendAsyncOnce(CompletableFuture<String[]> result, AtomicLong sentId, long timeoutMs,
+                               String[] request, boolean retryOnDrain, int retries) {
+        if (result.isDone()) {
+            // Đã hết giờ hoặc bị hủy trong lúc xếp hàng
+            return;
+        }
+        try {
+            checkConnected();
+            Socket draining = drainingSocket;
+            if (draining != null) {
+                reconnectAfterDrain(draining);
+            }
+            Socket used = socket;
+            String[] sent = cancellable ? withDeadline(timeoutMs, request) : request;
+            if (!pipelined) {
+                // Hỏi-đáp tuần tự: chờ ngay trên thread I/O
+                String[] response = sendOnce(sent);
+                if ("DRAINING".equals(response[0]) && retryOnDrain) {
+                    reconnectAfterDrain(used);
+                    sendAsyncOnce(result, sentId, timeoutMs, request, false, retries);
+                    return;
+                }
+                completeAsync(result, response);
+                return;
+            }
+            if (socket == null || socket.isClosed()) {
+                throw new IOException("Kết nối đã bị đóng");
+            }
+            long id = nextRequestId.incrementAndGet();
+            sentId.set(id);
+            sendTagged(id, sent).whenComplete((response, failure) -> {
+                if (failure != null) {
+                    failAsync(result, sentId, timeoutMs, request, retries, failure);
+                } else if ("DRAINING".equals(response[0]) && retryOnDrain) {
+                    try {
+                        asyncIo.execute(() -> {
+                            try {
+                                reconnectAfterDrain(used);
+                            } catch (IOException e) {
+                                runCallback(() -> result.completeExceptionally(e));
+                                return;
+                            }
+                            sendAsyncOnce(result, sentId, timeoutMs, request, false, retries);
+                        });
+                    } catch (RejectedExecutionException e) {
+                        runCallback(() -> result.completeExceptionally(new IOException("Client đã đóng")));
+                    }
+                } else {
+                    completeAsync(result, response);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            failAsync(result, sentId, timeoutMs, request, retries, e);
+        }
+    }
+
+    /** Lỗi vì mất kết nối và còn lượt: gửi lại sau khi kết nối lại, không giữ thread I/O trong lúc chờ */
+    private void failAsync(CompletableFuture<String[]> result, AtomicLong sentId, long timeoutMs,
+                           String[] request, int retries, Throwable failure) {
+        if (retries > 0 && AUTO_RECONNECT && broken && !closed && failure instanceof IOException) {
+            sentId.set(0);
+            reconnected.whenCompleteAsync((ignored, reconnectFailure) -> {
+                if (reconnectFailure != null) {
+                    runCallback(() -> result.completeExceptionally(failure));
+                } else {
+                    sendAsyncOnce(result, sentId, timeoutMs, request, true, retries - 1);
+                }
+            }, asyncIo);
+            return;
+        }
+        runCallback(() -> result.completeExceptionally(failure));
+    }
+
+    /** Chạy trên thread callback; sau close() thì chạy luôn trên thread hiện tại để future vẫn kết thúc */
+    private void runCallback(Runnable task) {
+        try {
+            callbacks.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /** Hoàn thành future trên thread callback; CANCELLED từ server nghĩa là đã quá hạn chót */
+    private void completeAsync(CompletableFuture<String[]> result, String[] response) {
+        runCallback(() -> {
+            try {
+                if ("CANCELLED".equals(response[0])) {
+                    result.completeExceptionally(new TimeoutException(field(response, 1)));
+                } else {
+                    result.complete(checkBusy(response));
+                }
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    /** Người gọi không chờ yêu cầu id nữa: bỏ future và báo server dừng nếu nó còn đang chạy */
+    private void abandon(long id) {
+        if (id == 0 || pendingRequests.remove(id) == null) {
+            return;
+        }
+        sendCancel(id);
+    }
+
+    /**
+     * Đọc phản hồi của source bằng parse; hủy (hoặc hoàn thành từ bên ngoài, vd. orTimeout) future
+     * trả về thì source cũng bị hủy để yêu cầu được bỏ ở cả hai đầu.
+     */
+    private static <T> CompletableFuture<T> map(CompletableFuture<String[]> source, Function<String[], T> parse) {
+        CompletableFuture<T> mapped = source.thenApply(parse);
+        mapped.whenComplete((value, failure) -> {
+            if (!source.isDone()) source.cancel(false);
+        });
+        return mapped;
+    }
+
+    /**
+     * Hủy mọi yêu cầu gõ phím đang chờ (kết quả của chúng đã lỗi thời): người gọi nhận ngay
+     * CANCELLED, server được báo CANCEL|id để dừng truy vấn. Chỉ có tác dụng khi pipelining.
+     */
+    public void cancelInteractive() {
+        for (Long id : interactiveRequests) {
+            interactiveRequests.remove(id);
+            CompletableFuture<String[]> future = pendingRequests.remove(id);
+            if (future == null) continue;
+            future.complete(CANCELLED);
+            synchronized (ioLock) {
+                try {
+                    writeRequest(0, new String[]{"CANCEL", String.valueOf(id)});
+                } catch (IOException e) {
+                    // Kết nối hỏng: thread đọc sẽ báo lỗi cho các yêu cầu còn lại
+                }
+            }
+        }
+    }
+
+    /**
+     * BUSY|retry-after: server hết chỗ cho phiên mới hoặc cho nhóm lệnh này.
+     * RATE_LIMITED|retry-after: kết nối (hoặc máy) này gửi quá hạn mức của nhóm lệnh.
+     */
+    private static String[] checkBusy(String[] response) throws IOException {
+        if ("BUSY".equals(response[0])) {
+            throw new IOException("Server đang quá tải, thử lại sau " + field(response, 1) + " ms");
+        }
+        if ("RATE_LIMITED".equals(response[0])) {
+            throw new IOException("Gửi yêu cầu quá nhanh, thử lại sau " + field(response, 1) + " ms");
+        }
+        return response;
+    }
+
+    /**
+     * Gửi STREAM|lệnh|tham số và gọi consumer cho từng từ ngay khi khung ROWS tới,
+     * không giữ toàn bộ kết quả trong bộ nhớ. Trả về tổng số từ server báo trong END.
+     */
+    private int stream(Consumer<Word> consumer, String... request) throws IOException {
+        checkConnected();
+        String[] streamRequest = new String[request.length + 1];
+        streamRequest[0] = "STREAM";
+        System.arraycopy(request, 0, streamRequest, 1, request.length);
+
+        if (pipelined) {
+            long id = nextRequestId.incrementAndGet();
+            BlockingQueue<String[]> queue = new ArrayBlockingQueue<>(STREAM_QUEUE_CHUNKS);
+            activeStreams.put(id, queue);
+            // Đã nhận thông điệp cuối (END/lỗi) thì server không còn gì để dừng
+            boolean finished = false;
+            try {
+                synchronized (ioLock) {
+                    writeRequest(id, streamRequest);
+                }
+                if (!pipelined) {
+                    throw new IOException("Kết nối đã bị đóng");
+                }
+                while (true) {
+                    String[] message = queue.take();
+                    finished = !"ROWS".equals(message[0]);
+                    Integer count = consumeChunk(message, consumer);
+                    if (count != null) {
+                        return count;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Bị ngắt khi chờ phản hồi");
+            } finally {
+                // Bỏ dở giữa chừng (người dùng dừng, bị ngắt): các khung còn lại bị bỏ, server được báo dừng
+                if (activeStreams.remove(id) != null && !finished) {
+                    sendCancel(id);
+                }
+                queue.clear();
+            }
+        }
+        synchronized (ioLock) {
+            if (socket == null || socket.isClosed()) {
+                throw new IOException("Kết nối đã bị đóng");
+            }
+            writeRequest(0, streamRequest);
+            Consumer<Word> target = consumer;
+            RuntimeException aborted = null;
+            while (true) {
+                String[] message = readResponse();
+                if (message == null) {
+                    throw new IOException("Server đã ngắt kết nối");
+                }
+                Integer count;
+                try {
+                    count = consumeChunk(message, target);
+                } catch (RuntimeException e) {
+                    // Người dùng bỏ dở: vẫn đọc hết các khung còn lại để phản hồi sau không bị lệch
+                    aborted = e;
+                    target = word -> { };
+                    continue;
+                }
+                if (count != null) {
+                    if (aborted != null) {
+                        throw aborted;
+                    }
+                    return count;
+                }
+            }
+        }
+    }
+
+    /**
+     * Chạy trên thread đọc: người dùng không xử lý kịp và hàng đợi của luồng đã đầy. Không chờ (sẽ chặn
+     * mọi phản hồi khác trên kết nối) mà hủy luồng: người dùng nhận lỗi ở khung kế tiếp, các khung
+     * đến sau bị bỏ, server được báo CANCEL|id để dừng truy vấn.
+     */
+    private void abortStream(long id, BlockingQueue<String[]> queue) {
+        if (activeStreams.remove(id) == null) {
+            return;
+        }
+        queue.clear();
+        queue.offer(new String[]{"ERROR", "Xử lý luồng quá chậm, đã hủy (" + STREAM_QUEUE_CHUNKS + " khung chờ)"});
+        sendCancel(id);
+    }
+
+    /** Báo server dừng yêu cầu id (nếu server nhận CANCEL); ghi trên thread I/O để không giữ ioLock ở thread gọi */
+    private void sendCancel(long id) {
+        if (!cancellable) {
+            return;
+        }
+        try {
+            asyncIo.execute(() -> {
+                synchronized (ioLock) {
+                    try {
+                        writeRequest(0, new String[]{"CANCEL", String.valueOf(id)});
+                    } catch (IOException e) {
+                        // Kết nối hỏng: thread đọc sẽ báo lỗi cho các yêu cầu còn lại
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ignore) {
+            // Client đã đóng
+        }
+    }
+
+    /** Một thông điệp của luồng: ROWS thì đẩy từng từ cho consumer, END trả về tổng số, còn lại là lỗi */
+    private Integer consumeChunk(String[] message, Consumer<Word> consumer) throws IOException {
+        switch (message[0]) {
+            case "ROWS":
+                forEachWord(message, consumer);
+                return null;
+            case "END":
+                return Integer.valueOf(field(message, 1));
+            case "BUSY":
+                throw new IOException("Server đang quá tải, thử lại sau " + field(message, 1) + " ms");
+            default:
+                throw new IOException(parseResponse(message));
+        }
+    }
+
     public void disconnect() {
+        closed = true;
+        pipelined = false;
+        broken = true;
+        reconnected.completeExceptionally(new IOException("Đã ngắt kết nối"));
+        failPending(new IOException("Đã ngắt kết nối"));
         try {
             if (out != null) out.close();
             if (in != null) in.close();
@@ -56,36 +1006,95 @@ public class DictionaryClient {
         }
     }
 
+    /**
+     * Ngắt kết nối và dừng các thread nền (I/O bất đồng bộ, callback, kết nối lại).
+     * Khác disconnect(), client không dùng lại được nữa; mỗi DictionaryClient bỏ đi phải được close().
+     */
+    public void close() {
+        disconnect();
+        shutdownExecutors();
+    }
+
+    private void shutdownExecutors() {
+        // Lần kết nối lại đã hẹn không còn ý nghĩa
+        reconnector.shutdownNow();
+        asyncIo.shutdown();
+        callbacks.shutdown();
+    }
+
     /**
      * Tìm kiếm từ và trả về danh sách các định nghĩa theo từ loại
      */
     public List<Word> searchWord(String englishWord) {
-        List<Word> results = new ArrayList<>();
+        List<Word> cached = cached("SEARCH", englishWord);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            String request = "SEARCH|" + englishWord;
-            String response = send(request);
-            
-            String[] parts = response.split("\\|", -1);
-            System.out.println("[CLIENT][SEARCH] respParts=" + parts.length + ", raw=" + (response == null ? "null" : response));
-            if (parts.length >= 2 && "SUCCESS".equals(parts[0])) {
-                for (int i = 1; i < parts.length; i += 7) {
-                    if (i + 6 < parts.length) {
-                        Word word = new Word(
-                            parts[i],      // englishWord
-                            parts[i + 1],  // partOfSpeech
-                            parts[i + 2],  // phoneticSpelling
-                            parts[i + 3],  // vietnameseMeaning
-                            parts[i + 4],  // detailedDefinition
-                            parts[i + 5],  // exampleSentence
-                            parts[i + 6]   // imagePath
-                        );
-                        results.add(word);
-                    }
-                }
-            }
+            long generation = cacheGeneration();
+            String[] parts = sendInteractiveRead(SEARCH_DEADLINE_MS, "SEARCH", englishWord);
+            return remember("SEARCH", englishWord, parts, generation);
         } catch (IOException e) {
             System.err.println("Lỗi kết nối: " + e.getMessage());
         }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Tra nhiều từ tiếng Anh trong một lượt (MSEARCH) thay vì mỗi từ một lần SEARCH.
+     * Kết quả giữ thứ tự đầu vào; từ không tìm thấy có danh sách rỗng.
+     */
+    public Map<String, List<Word>> searchWords(Collection<String> englishWords) {
+        return multiSearch("EN", englishWords);
+    }
+
+    /**
+     * Tra nhiều từ tiếng Việt trong một lượt
+     */
+    public Map<String, List<Word>> searchVietnameseWords(Collection<String> vietnameseWords) {
+        return multiSearch("VI", vietnameseWords);
+    }
+
+    private Map<String, List<Word>> multiSearch(String direction, Collection<String> keys) {
+        Map<String, List<Word>> results = new LinkedHashMap<>();
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(keys));
+        for (int from = 0; from < unique.size(); from += MSEARCH_BATCH_SIZE) {
+            List<String> batch = unique.subList(from, Math.min(unique.size(), from + MSEARCH_BATCH_SIZE));
+            String[] request = new String[2 + batch.size()];
+            request[0] = "MSEARCH";
+            request[1] = direction;
+            for (int i = 0; i < batch.size(); i++) {
+                request[2 + i] = batch.get(i);
+            }
+
+            String[] parts;
+            try {
+                parts = sendRead(request);
+            } catch (IOException e) {
+                System.err.println("Lỗi kết nối: " + e.getMessage());
+                break;
+            }
+            if (!"RESULTS".equals(parts[0])) {
+                // Server cũ chưa có MSEARCH: tra từng từ
+                for (String key : batch) {
+                    results.put(key, "VI".equals(direction) ? searchVietnameseWord(key) : searchWord(key));
+                }
+                continue;
+            }
+            int i = 1;
+            while (i + 1 < parts.length) {
+                String key = parts[i];
+                int count = Integer.parseInt(parts[i + 1]);
+                i += 2;
+                List<Word> words = new ArrayList<>(count);
+                forEachWord(parts, i, Math.min(parts.length, i + count * 7), words::add);
+                results.put(key, words);
+                i += count * 7;
+            }
+        }
+        for (String key : unique) {
+            results.putIfAbsent(key, new ArrayList<>());
+        }
         return results;
     }
 
@@ -94,14 +1103,14 @@ public class DictionaryClient {
      */
     public String addWord(Word word) {
         try {
-            String request = String.format("ADD|%s|%s|%s|%s|%s|%s",
+            String[] response = send("ADD",
                 word.getEnglishWord(),
                 word.getPartOfSpeech(),
                 word.getPhoneticSpelling(),
                 word.getVietnameseMeaning(),
                 word.getDetailedDefinition(),
                 word.getExampleSentence());
-            String response = send(request);
+            forget(word.getEnglishWord());
             return parseResponse(response);
         } catch (IOException e) {
             return "Lỗi kết nối: " + e.getMessage();
@@ -113,14 +1122,14 @@ public class DictionaryClient {
      */
     public String updateWord(Word word) {
         try {
-            String request = String.format("UPDATE|%s|%s|%s|%s|%s|%s",
+            String[] response = send("UPDATE",
                 word.getEnglishWord(),
                 word.getPartOfSpeech(),
                 word.getPhoneticSpelling(),
                 word.getVietnameseMeaning(),
                 word.getDetailedDefinition(),
                 word.getExampleSentence());
-            String response = send(request);
+            forget(word.getEnglishWord());
             return parseResponse(response);
         } catch (IOException e) {
             return "Lỗi kết nối: " + e.getMessage();
@@ -132,8 +1141,8 @@ public class DictionaryClient {
      */
     public String deleteWord(String englishWord, String partOfSpeech) {
         try {
-            String request = "DELETE|" + englishWord + "|" + partOfSpeech;
-            String response = send(request);
+            String[] response = send("DELETE", englishWord, partOfSpeech);
+            forget(englishWord);
             return parseResponse(response);
         } catch (IOException e) {
             return "Lỗi kết nối: " + e.getMessage();
@@ -145,8 +1154,8 @@ public class DictionaryClient {
      */
     public String deleteAllMeanings(String englishWord) {
         try {
-            String request = "DELETE|" + englishWord;
-            String response = send(request);
+            String[] response = send("DELETE", englishWord);
+            forget(englishWord);
             return parseResponse(response);
         } catch (IOException e) {
             return "Lỗi kết nối: " + e.getMessage();
@@ -157,99 +1166,195 @@ public class DictionaryClient {
      * Tìm kiếm các từ có chứa từ khóa
      */
     public List<Word> searchWordsContaining(String keyword) {
-        List<Word> words = new ArrayList<>();
+        List<Word> cached = cached("SEARCH_CONTAINING", keyword);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            String request = "SEARCH_CONTAINING|" + keyword;
-            String response = send(request);
-            
-            String[] parts = response.split("\\|", -1);
-            System.out.println("[CLIENT][SEARCH_CONTAINING] respParts=" + parts.length + ", rawHead=" + (response == null ? "null" : response.substring(0, Math.min(200, response.length()))));
-            if (parts.length >= 2 && "SUCCESS".equals(parts[0])) {
-                for (int i = 1; i < parts.length; i += 7) {
-                    if (i + 6 < parts.length) {
-                        Word word = new Word(
-                            parts[i],      // englishWord
-                            parts[i + 1],  // partOfSpeech
-                            parts[i + 2],  // phoneticSpelling
-                            parts[i + 3],  // vietnameseMeaning
-                            parts[i + 4],  // detailedDefinition
-                            parts[i + 5],  // exampleSentence
-                            parts[i + 6]   // imagePath
-                        );
-                        words.add(word);
-                    }
+            long generation = cacheGeneration();
+            String[] parts = sendRead("SEARCH_CONTAINING", keyword);
+            return remember("SEARCH_CONTAINING", keyword, parts, generation);
+        } catch (IOException e) {
+            System.err.println("Lỗi kết nối: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Tìm các từ có chứa từ khóa theo trang (tối đa limit từ); cursor = null cho trang đầu,
+     * trang sau dùng getNextCursor() của trang trước
+     */
+    public WordPage searchWordsContaining(String keyword, int limit, String cursor) {
+        try {
+            return parsePage(sendInteractiveRead(SEARCH_DEADLINE_MS,
+                    "SEARCH_CONTAINING", keyword, String.valueOf(limit), cursor != null ? cursor : ""));
+        } catch (IOException e) {
+            System.err.println("Lỗi kết nối: " + e.getMessage());
+        }
+        return new WordPage(new ArrayList<>(), null);
+    }
+
+    /**
+     * Gợi ý tự hoàn thành (ưu tiên khớp đầu chuỗi), chỉ gồm chuỗi hiển thị và nghĩa ngắn.
+     * vietnamese = true: gợi ý theo nghĩa tiếng Việt (Việt → Anh)
+     */
+    public List<Suggestion> suggest(boolean vietnamese, String prefix, int limit) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        try {
+            String[] parts = sendInteractiveRead(SUGGEST_DEADLINE_MS,
+                    "SUGGEST", vietnamese ? "VI" : "EN", prefix, String.valueOf(limit));
+            if ("SUGGESTIONS".equals(parts[0])) {
+                for (int i = 1; i + 1 < parts.length; i += 2) {
+                    suggestions.add(new Suggestion(parts[i], parts[i + 1]));
                 }
+                return suggestions;
+            }
+            if ("CANCELLED".equals(parts[0])) {
+                // Đã có chuỗi gõ mới hơn hoặc quá hạn: không tìm bù
+                return suggestions;
             }
         } catch (IOException e) {
             System.err.println("Lỗi kết nối: " + e.getMessage());
+            return suggestions;
         }
-        return words;
+        // Server cũ chưa có SUGGEST: dùng tìm kiếm chứa có giới hạn
+        WordPage page = vietnamese
+                ? searchVietnameseWordsContaining(prefix, limit, null)
+                : searchWordsContaining(prefix, limit, null);
+        for (Word w : page.getWords()) {
+            suggestions.add(vietnamese
+                    ? new Suggestion(w.getVietnameseMeaning(), w.getEnglishWord())
+                    : new Suggestion(w.getEnglishWord(), w.getVietnameseMeaning()));
+        }
+        return suggestions;
     }
 
     /**
      * Tìm kiếm từ tiếng Việt và trả về danh sách các từ tiếng Anh tương ứng
      */
     public List<Word> searchVietnameseWord(String vietnameseWord) {
-        List<Word> results = new ArrayList<>();
+        List<Word> cached = cached("SEARCH_VIETNAMESE", vietnameseWord);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            String request = "SEARCH_VIETNAMESE|" + vietnameseWord;
-            String response = send(request);
-            
-            String[] parts = response.split("\\|", -1);
-            System.out.println("[CLIENT][SEARCH_VIETNAMESE] respParts=" + parts.length + ", rawHead=" + (response == null ? "null" : response.substring(0, Math.min(200, response.length()))));
-            if (parts.length >= 2 && "SUCCESS".equals(parts[0])) {
-                for (int i = 1; i < parts.length; i += 7) {
-                    if (i + 6 < parts.length) {
-                        Word word = new Word(
-                            parts[i],      // englishWord
-                            parts[i + 1],  // partOfSpeech
-                            parts[i + 2],  // phoneticSpelling
-                            parts[i + 3],  // vietnameseMeaning
-                            parts[i + 4],  // detailedDefinition
-                            parts[i + 5],  // exampleSentence
-                            parts[i + 6]   // imagePath
-                        );
-                        results.add(word);
-                    }
-                }
-            }
+            long generation = cacheGeneration();
+            String[] parts = sendInteractiveRead(SEARCH_DEADLINE_MS, "SEARCH_VIETNAMESE", vietnameseWord);
+            return remember("SEARCH_VIETNAMESE", vietnameseWord, parts, generation);
         } catch (IOException e) {
             System.err.println("Lỗi kết nối: " + e.getMessage());
         }
-        return results;
+        return new ArrayList<>();
     }
 
     /**
      * Tìm kiếm các từ Việt có chứa từ khóa
      */
     public List<Word> searchVietnameseWordsContaining(String keyword) {
-        List<Word> results = new ArrayList<>();
+        List<Word> cached = cached("SEARCH_VIETNAMESE_CONTAINING", keyword);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            String request = "SEARCH_VIETNAMESE_CONTAINING|" + keyword;
-            String response = send(request);
-            
-            String[] parts = response.split("\\|", -1);
-            System.out.println("[CLIENT][SEARCH_VIET_CONTAINING] respParts=" + parts.length + ", rawHead=" + (response == null ? "null" : response.substring(0, Math.min(200, response.length()))));
-            if (parts.length >= 2 && "SUCCESS".equals(parts[0])) {
-                for (int i = 1; i < parts.length; i += 7) {
-                    if (i + 6 < parts.length) {
-                        Word word = new Word(
-                            parts[i],      // englishWord
-                            parts[i + 1],  // partOfSpeech
-                            parts[i + 2],  // phoneticSpelling
-                            parts[i + 3],  // vietnameseMeaning
-                            parts[i + 4],  // detailedDefinition
-                            parts[i + 5],  // exampleSentence
-                            parts[i + 6]   // imagePath
-                        );
-                        results.add(word);
-                    }
-                }
-            }
+            long generation = cacheGeneration();
+            String[] parts = sendRead("SEARCH_VIETNAMESE_CONTAINING", keyword);
+            return remember("SEARCH_VIETNAMESE_CONTAINING", keyword, parts, generation);
         } catch (IOException e) {
             System.err.println("Lỗi kết nối: " + e.getMessage());
         }
-        return results;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Tìm các từ Việt có chứa từ khóa theo trang
+     */
+    public WordPage searchVietnameseWordsContaining(String keyword, int limit, String cursor) {
+        try {
+            return parsePage(sendInteractiveRead(SEARCH_DEADLINE_MS,
+                    "SEARCH_VIETNAMESE_CONTAINING", keyword, String.valueOf(limit), cursor != null ? cursor : ""));
+        } catch (IOException e) {
+            System.err.println("Lỗi kết nối: " + e.getMessage());
+        }
+        return new WordPage(new ArrayList<>(), null);
+    }
+
+    /*
+     * API bất đồng bộ: các phương thức ...Async không chặn thread gọi (an toàn trên EDT) và trả
+     * CompletableFuture. Future lỗi IOException khi mất kết nối hay server quá tải, TimeoutException
+     * sau dictionary.client.asyncTimeoutMs; cancel() future thì server bỏ truy vấn. Hàm nối tiếp chạy
+     * trên thread nền của client nên cập nhật giao diện phải qua SwingUtilities.invokeLater.
+     */
+
+    /**
+     * Như searchWord nhưng không chặn
+     */
+    public CompletableFuture<List<Word>> searchWordAsync(String englishWord) {
+        return lookupAsync("SEARCH", englishWord);
+    }
+
+    /**
+     * Như searchVietnameseWord nhưng không chặn
+     */
+    public CompletableFuture<List<Word>> searchVietnameseWordAsync(String vietnameseWord) {
+        return lookupAsync("SEARCH_VIETNAMESE", vietnameseWord);
+    }
+
+    /**
+     * Như searchWordsContaining(keyword) nhưng không chặn
+     */
+    public CompletableFuture<List<Word>> searchWordsContainingAsync(String keyword) {
+        return lookupAsync("SEARCH_CONTAINING", keyword);
+    }
+
+    /**
+     * Như searchVietnameseWordsContaining(keyword) nhưng không chặn
+     */
+    public CompletableFuture<List<Word>> searchVietnameseWordsContainingAsync(String keyword) {
+        return lookupAsync("SEARCH_VIETNAMESE_CONTAINING", keyword);
+    }
+
+    /**
+     * Như searchWordsContaining(keyword, limit, cursor) nhưng không chặn
+     */
+    public CompletableFuture<WordPage> searchWordsContainingAsync(String keyword, int limit, String cursor) {
+        return map(sendAsync(ASYNC_TIMEOUT_MS, "SEARCH_CONTAINING", keyword, String.valueOf(limit),
+                cursor != null ? cursor : ""), this::parsePage);
+    }
+
+    /**
+     * Như searchVietnameseWordsContaining(keyword, limit, cursor) nhưng không chặn
+     */
+    public CompletableFuture<WordPage> searchVietnameseWordsContainingAsync(String keyword, int limit, String cursor) {
+        return map(sendAsync(ASYNC_TIMEOUT_MS, "SEARCH_VIETNAMESE_CONTAINING", keyword, String.valueOf(limit),
+                cursor != null ? cursor : ""), this::parsePage);
+    }
+
+    /**
+     * Như suggest nhưng không chặn. Server cũ chưa có SUGGEST thì trả về danh sách rỗng
+     * (không tìm bù bằng tìm kiếm chứa như bản đồng bộ).
+     */
+    public CompletableFuture<List<Suggestion>> suggestAsync(boolean vietnamese, String prefix, int limit) {
+        return map(sendAsync(SUGGEST_DEADLINE_MS, "SUGGEST", vietnamese ? "VI" : "EN", prefix, String.valueOf(limit)),
+                parts -> {
+                    List<Suggestion> suggestions = new ArrayList<>();
+                    if ("SUGGESTIONS".equals(parts[0])) {
+                        for (int i = 1; i + 1 < parts.length; i += 2) {
+                            suggestions.add(new Suggestion(parts[i], parts[i + 1]));
+                        }
+                    }
+                    return suggestions;
+                });
+    }
+
+    /** Tra cứu bất đồng bộ qua cache tra cứu như bản đồng bộ: trúng cache thì future đã xong sẵn */
+    private CompletableFuture<List<Word>> lookupAsync(String command, String argument) {
+        List<Word> cached = cached(command, argument);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long generation = cacheGeneration();
+        return map(sendAsync(ASYNC_TIMEOUT_MS, command, argument),
+                parts -> remember(command, argument, parts, generation));
     }
 
     /**
@@ -258,49 +1363,132 @@ public class DictionaryClient {
     public List<Word> getAllWords() {
         List<Word> words = new ArrayList<>();
         try {
-            String request = "GET_ALL|";
-            String response = send(request);
-            
-            String[] parts = response.split("\\|", -1);
-            System.out.println("[CLIENT][GET_ALL] respParts=" + parts.length);
-            if (parts.length >= 2 && "SUCCESS".equals(parts[0])) {
-                for (int i = 1; i < parts.length; i += 7) {
-                    if (i + 6 < parts.length) {
-                        Word word = new Word(
-                            parts[i],      // englishWord
-                            parts[i + 1],  // partOfSpeech
-                            parts[i + 2],  // phoneticSpelling
-                            parts[i + 3],  // vietnameseMeaning
-                            parts[i + 4],  // detailedDefinition
-                            parts[i + 5],  // exampleSentence
-                            parts[i + 6]   // imagePath
-                        );
-                        words.add(word);
-                    }
-                }
-            }
+            // Mất kết nối giữa chừng thì đọc lại từ đầu
+            withRetry(() -> {
+                words.clear();
+                return streamAllWords(words::add);
+            });
         } catch (IOException e) {
             System.err.println("Lỗi kết nối: " + e.getMessage());
         }
         return words;
     }
 
+    /**
+     * Duyệt toàn bộ từ điển dạng luồng: consumer nhận từng từ khi khung tới, bộ nhớ không tăng theo kích thước từ điển
+     */
+    public int streamAllWords(Consumer<Word> consumer) throws IOException {
+        return stream(consumer, "GET_ALL", "");
+    }
+
+    /**
+     * Tìm các từ có chứa từ khóa, nhận kết quả dạng luồng
+     */
+    public int streamWordsContaining(String keyword, Consumer<Word> consumer) throws IOException {
+        return stream(consumer, "SEARCH_CONTAINING", keyword);
+    }
+
+    /**
+     * Tìm các từ Việt có chứa từ khóa, nhận kết quả dạng luồng
+     */
+    public int streamVietnameseWordsContaining(String keyword, Consumer<Word> consumer) throws IOException {
+        return stream(consumer, "SEARCH_VIETNAMESE_CONTAINING", keyword);
+    }
+
+    /** Kết quả trong cache (bản sao), hoặc null nếu cache không dùng được hay chưa có */
+    private List<Word> cached(String command, String argument) {
+        if (cache == null || !invalidationPushes || argument == null) {
+            return null;
+        }
+        return cache.get(command, argument);
+    }
+
+    private long cacheGeneration() {
+        return cache != null ? cache.generation() : 0;
+    }
+
+    /**
+     * Đọc kết quả và chỉ lưu vào cache khi SUCCESS. Không lưu NOT_FOUND: server cũng trả NOT_FOUND khi
+     * CSDL lỗi, và không có INVALIDATE nào báo "CSDL đã chạy lại", nên sự cố sẽ bị giữ suốt tuổi thọ mục.
+     */
+    private List<Word> remember(String command, String argument, String[] parts, long generation) {
+        List<Word> words = parseWords(parts);
+        if (cache != null && invalidationPushes && argument != null && "SUCCESS".equals(parts[0])) {
+            cache.put(command, argument, words, generation);
+        }
+        return words;
+    }
+
+    /** Bỏ ngay các mục liên quan sau khi chính client này sửa từ, không chờ INVALIDATE của server */
+    private void forget(String englishWord) {
+        if (cache != null && englishWord != null) {
+            cache.invalidate(englishWord);
+        }
+    }
+
+    /** Thống kê cache tra cứu của client */
+    public String getCacheStats() {
+        return cache != null ? cache.stats() : "cache client: tắt";
+    }
+
+    /**
+     * Chuyển phản hồi SUCCESS|7 trường mỗi từ|... thành danh sách Word
+     */
+    private List<Word> parseWords(String[] parts) {
+        List<Word> words = new ArrayList<>();
+        if (parts.length >= 2 && "SUCCESS".equals(parts[0])) {
+            forEachWord(parts, words::add);
+        }
+        return words;
+    }
+
+    /**
+     * Chuyển PAGE|con trỏ|7 trường mỗi từ|... thành WordPage; server cũ trả SUCCESS (không phân trang) cũng được
+     */
+    private WordPage parsePage(String[] parts) {
+        List<Word> words = new ArrayList<>();
+        if ("PAGE".equals(parts[0])) {
+            String nextCursor = field(parts, 1);
+            forEachWord(parts, 2, parts.length, words::add);
+            return new WordPage(words, nextCursor.isEmpty() ? null : nextCursor);
+        }
+        return new WordPage(parseWords(parts), null);
+    }
+
+    /** Đọc các nhóm 7 trường bắt đầu từ vị trí 1 (sau trạng thái) thành Word */
+    private static void forEachWord(String[] parts, Consumer<Word> consumer) {
+        forEachWord(parts, 1, parts.length, consumer);
+    }
+
+    private static void forEachWord(String[] parts, int start, int end, Consumer<Word> consumer) {
+        for (int i = start; i + 6 < end; i += 7) {
+            consumer.accept(new Word(
+                parts[i],      // englishWord
+                parts[i + 1],  // partOfSpeech
+                parts[i + 2],  // phoneticSpelling
+                parts[i + 3],  // vietnameseMeaning
+                parts[i + 4],  // detailedDefinition
+                parts[i + 5],  // exampleSentence
+                parts[i + 6]   // imagePath
+            ));
+        }
+    }
+
     /**
      * Phân tích phản hồi từ server
      */
-    private String parseResponse(String response) {
+    private String parseResponse(String[] response) {
         if (response == null) {
             return "Lỗi: Không nhận được phản hồi từ server";
         }
-        
-        String[] parts = response.split("\\|", 2);
-        if (parts.length < 2) {
-            return response;
+
+        if (response.length < 2) {
+            return TextCodec.join(response);
         }
-        
-        String status = parts[0];
-        String message = parts[1];
-        
+
+        String status = response[0];
+        String message = TextCodec.join(Arrays.copyOfRange(response, 1, response.length));
+
         switch (status) {
             case "SUCCESS":
                 return message;
@@ -309,42 +1497,95 @@ public class DictionaryClient {
             case "NOT_FOUND":
                 return "Không tìm thấy: " + message;
             default:
-                return response;
+                return TextCodec.join(response);
         }
     }
 
+    private static String field(String[] parts, int index) {
+        return index < parts.length ? parts[index] : "";
+    }
+
     /**
-     * Kiểm tra kết nối
+     * Kiểm tra kết nối, chủ yếu không tốn lượt mạng: kết nối hỏng nếu đã có lỗi I/O (hoặc server đóng),
+     * còn tốt nếu vừa nhận được phản hồi hay HEARTBEAT trong PROBE_IDLE_MS. Chỉ khi im lặng lâu hơn
+     * mới gửi PING thật (chờ tối đa 1 giây).
      */
     public boolean isConnected() {
-        if (socket == null || socket.isClosed() || !socket.isConnected()) {
+        healthChecks.incrementAndGet();
+        Socket current = socket;
+        if (current == null || current.isClosed() || !current.isConnected() || broken) {
             return false;
         }
-        
-        // Kiểm tra thực tế bằng cách gửi PING
+        if (System.nanoTime() - lastReceivedNanos < TimeUnit.MILLISECONDS.toNanos(PROBE_IDLE_MS)) {
+            return true;
+        }
+        return probe();
+    }
+
+    /** Gửi PING và ghi nhận số lần, độ trễ (xem getHealthStats) */
+    private boolean probe() {
+        long start = System.nanoTime();
+        boolean alive = false;
         try {
-            synchronized (ioLock) {
-                out.println("PING");
-                socket.setSoTimeout(1000); // Timeout 1 giây
-                String response = in.readLine();
-                socket.setSoTimeout(0); // Reset timeout
-                return response != null && response.startsWith("PONG");
+            if (pipelined) {
+                String[] response = await(sendTagged("PING"), PROBE_TIMEOUT_MS);
+                alive = "PONG".equals(response[0]);
+            } else {
+                synchronized (ioLock) {
+                    writeRequest(0, new String[]{"PING"});
+                    socket.setSoTimeout(PROBE_TIMEOUT_MS);
+                    String[] response;
+                    try {
+                        response = readResponse();
+                    } catch (IOException e) {
+                        // Hết giờ chờ: PONG đến muộn sẽ bị lượt hỏi-đáp sau đọc nhầm thành phản hồi của nó,
+                        // nên bỏ hẳn kết nối này như các lỗi đọc khác
+                        markBroken();
+                        try {
+                            socket.close();
+                        } catch (IOException ignore) { }
+                        throw e;
+                    }
+                    socket.setSoTimeout(0);
+                    alive = response != null && response[0].startsWith("PONG");
+                }
             }
         } catch (Exception e) {
-            return false;
+            alive = false;
+        }
+        probes.incrementAndGet();
+        probeNanos.addAndGet(System.nanoTime() - start);
+        if (!alive) {
+            failedProbes.incrementAndGet();
         }
+        return alive;
     }
-    
+
+    /** Số lần isConnected(), số PING thật đã gửi và độ trễ trung bình của chúng */
+    public String getHealthStats() {
+        long checks = healthChecks.get();
+        long sent = probes.get();
+        return String.format("kiểm tra kết nối: %d lần, %d PING (%d lỗi, trung bình %.2f ms), im lặng %d ms",
+                checks, sent, failedProbes.get(),
+                sent == 0 ? 0.0 : probeNanos.get() / 1e6 / sent,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceivedNanos));
+    }
+
     /**
      * Kết nối lại đến server
      */
     public boolean reconnect() {
         try {
             disconnect();
-            connect();
+            synchronized (ioLock) {
+                closed = false;
+                connect();
+            }
             return true;
         } catch (IOException e) {
             System.err.println("Không thể kết nối lại: " + e.getMessage());
+            // Tiếp tục thử trong nền theo backoff
+            markBroken();
             return false;
         }
     }
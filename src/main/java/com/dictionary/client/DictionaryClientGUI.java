@@ -1,6 +1,8 @@
 package com.dictionary.client;
 
+import com.dictionary.model.Suggestion;
 import com.dictionary.model.Word;
+import com.dictionary.model.WordPage;
 import com.dictionary.ui.UIUtils;
 import com.dictionary.ui.UIUtils.AnimatedPanel;
 import com.dictionary.ui.MaterialUIUtils;
@@ -10,11 +12,18 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableColumnModel;
 import java.awt.*;
-import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class DictionaryClientGUI extends JFrame {
-    private DictionaryClient client;
+    // Số gợi ý hiển thị và số dòng mỗi trang khi tìm từ chứa
+    private static final int SUGGESTION_LIMIT = 5;
+    private static final int PAGE_SIZE = 50;
+
+    // Được thay trên EDT, đọc cả từ thread nền kiểm tra kết nối
+    private volatile DictionaryClient client;
     private JTextField searchField;
     private JTable wordTable;
     private DefaultTableModel tableModel;
@@ -29,6 +38,23 @@ public class DictionaryClientGUI extends JFrame {
     private JComboBox<String> directionCombo; 
     private CSVLogger csvLogger; 
     private JPopupMenu suggestionPopup;
+    private JScrollPane tableScroll;
+
+    // Phân trang bảng kết quả: cách tải trang tiếp theo và con trỏ (null khi đã hết)
+    private Function<String, CompletableFuture<WordPage>> pageLoader;
+    private String nextPageCursor;
+
+    // Mạng, đĩa và giải mã ảnh chạy nền; mỗi vùng giao diện chỉ hiển thị kết quả của lần gọi mới nhất
+    private final BackgroundTasks background = new BackgroundTasks();
+    private final BackgroundTasks.Channel suggestionTask = background.channel();
+    private final BackgroundTasks.Channel searchTask = background.channel();
+    private final BackgroundTasks.Channel pageTask = background.channel();
+    private final BackgroundTasks.Channel detailTask = background.channel();
+    private final BackgroundTasks.Channel imageTask = background.channel();
+    private final BackgroundTasks.Channel connectTask = background.channel();
+    // Kết quả lần kiểm tra kết nối gần nhất (chạy nền), để EDT không phải chờ mạng
+    private volatile boolean connected;
+    private boolean checkingConnection;
     
 
     // Panel chứa card chi tiết
@@ -73,11 +99,13 @@ public class DictionaryClientGUI extends JFrame {
         searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             @Override
             public void insertUpdate(javax.swing.event.DocumentEvent e) { 
+                cancelStaleRequests();
                 suggestionTimer.restart();
                 searchTimer.restart(); // Tự động tìm kiếm
             }
             @Override
             public void removeUpdate(javax.swing.event.DocumentEvent e) { 
+                cancelStaleRequests();
                 suggestionTimer.restart();
                 searchTimer.restart(); // Tự động tìm kiếm
             }
@@ -171,42 +199,41 @@ public class DictionaryClientGUI extends JFrame {
         mainPanel = new AnimatedPanel(new BorderLayout(20, 20));
     }
 
+    /** Nội dung ô tìm kiếm vừa đổi: gợi ý/tra cứu đang chờ cho chuỗi cũ không còn cần nữa */
+    private void cancelStaleRequests() {
+        suggestionTask.cancel();
+        searchTask.cancel();
+        DictionaryClient current = client;
+        if (current != null) {
+            current.cancelInteractive();
+        }
+    }
+
     private void showSuggestions() {
         String text = searchField.getText().trim();
         suggestionPopup.setVisible(false);
         suggestionPopup.removeAll();
     
-        if (text.isEmpty() || client == null || !client.isConnected()) return;
+        DictionaryClient current = client;
+        if (text.isEmpty() || current == null || !connected) return;
     
         String direction = (String) directionCombo.getSelectedItem();
-        List<Word> suggestions;
-    
-        if ("Anh → Việt".equals(direction)) {
-            suggestions = client.searchWordsContaining(text);
-        } else {
-            suggestions = client.searchVietnameseWordsContaining(text);
-        }
     
+        // ✅ Lệnh SUGGEST nhẹ: server trả đúng số gợi ý cần hiển thị, chỉ gồm từ và nghĩa ngắn.
+        // Chạy nền; gợi ý của chuỗi đã gõ đè lên bị bỏ
+        suggestionTask.submit(() -> current.suggestAsync(!"Anh → Việt".equals(direction), text, SUGGESTION_LIMIT),
+                this::renderSuggestions,
+                error -> System.err.println("Lỗi gợi ý: " + errorMessage(error)));
+    }
+
+    private void renderSuggestions(List<Suggestion> suggestions) {
         if (suggestions.isEmpty()) return;
     
-        // ✅ Chỉ lấy 5 gợi ý đầu tiên
-        int limit = Math.min(5, suggestions.size());
-    
-        for (int i = 0; i < limit; i++) {
-            Word w = suggestions.get(i);
-    
-            String label = "Anh → Việt".equals(direction)
-                    ? (w.getEnglishWord() + " - " + w.getVietnameseMeaning())
-                    : (w.getVietnameseMeaning() + " - " + w.getEnglishWord());
-    
-            JMenuItem item = new JMenuItem(label);
+        for (Suggestion s : suggestions) {
+            JMenuItem item = new JMenuItem(s.getText() + " - " + s.getMeaning());
             item.setFont(new Font("Segoe UI", Font.PLAIN, 14));
             item.addActionListener(e -> {
-                if ("Anh → Việt".equals(direction)) {
-                    searchField.setText(w.getEnglishWord());
-                } else {
-                    searchField.setText(w.getVietnameseMeaning());
-                }
+                searchField.setText(s.getText());
                 suggestionPopup.setVisible(false);
                 performSearch();
             });
@@ -258,7 +285,8 @@ public class DictionaryClientGUI extends JFrame {
         JLabel tableTitle = new JLabel("Kết quả tìm kiếm");
         tableTitle.setFont(new Font("Segoe UI", Font.BOLD, 18));
         tablePanel.add(tableTitle, BorderLayout.NORTH);
-        tablePanel.add(new JScrollPane(wordTable), BorderLayout.CENTER);
+        tableScroll = new JScrollPane(wordTable);
+        tablePanel.add(tableScroll, BorderLayout.CENTER);
     
         // Bảng lịch sử tra cứu
         String[] historyColumns = {"Từ đã tra"};
@@ -428,87 +456,116 @@ private void addHistoryItem(String directionLabel, Word w) {
         refreshButton.addActionListener(e -> clearFields());
         reconnectButton.addActionListener(e -> connectToServer());
 
+        // Cuộn gần cuối bảng thì tải trang kết quả tiếp theo
+        tableScroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = tableScroll.getVerticalScrollBar();
+            if (nextPageCursor != null && bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - 100) {
+                SwingUtilities.invokeLater(this::loadNextPage);
+            }
+        });
+
         wordTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 int row = wordTable.getSelectedRow();
                 if (row >= 0) {
-                    // Lấy lại Word object từ server để có đầy đủ thông tin ảnh
-                    String englishWord = (String) tableModel.getValueAt(row, 0);
-                    List<Word> fullWords = client.searchWord(englishWord);
-                    
-                    Word w = null;
-                    if (!fullWords.isEmpty()) {
-                        // Tìm từ có cùng từ loại
-                        String partOfSpeech = (String) tableModel.getValueAt(row, 1);
-                        for (Word word : fullWords) {
-                            if (word.getPartOfSpeech().equals(partOfSpeech)) {
-                                w = word;
-                                break;
-                            }
-                        }
-                        if (w == null) w = fullWords.get(0); // Fallback
-                    } else {
-                        // Tạo Word object từ dữ liệu bảng nếu không tìm thấy
-                        w = new Word(
-                            (String) tableModel.getValueAt(row, 0), // English
-                            (String) tableModel.getValueAt(row, 1), // POS
-                            (String) tableModel.getValueAt(row, 2), // Phonetic
-                            (String) tableModel.getValueAt(row, 3), // Vietnamese
-                            (String) tableModel.getValueAt(row, 4), // Definition
-                            (String) tableModel.getValueAt(row, 5), // Example
-                            null  // ImagePath
-                        );
-                    }
-                    displayWordDetails(
-    w.getEnglishWord(),
-    w.getPartOfSpeech(),
-    w.getPhoneticSpelling(),
-    w.getVietnameseMeaning(),
-    w.getDetailedDefinition(),
-    w.getExampleSentence(),
-    w.getImagePath() // ✅
-);
-
-
-                    if (!fromHistoryClick) {
-                        String dir = (String) directionCombo.getSelectedItem();
-                        addHistoryItem(dir, w);   // 👉 chỉ lưu khi user chọn chi tiết
-                        
-                        // Ghi log CSV khi user chọn từ trong bảng
-                        csvLogger.logSearch(w.getEnglishWord(), dir, w);
-                    }
+                    // Word object từ dữ liệu bảng, dùng khi server không trả về được
+                    Word fromTable = new Word(
+                        (String) tableModel.getValueAt(row, 0), // English
+                        (String) tableModel.getValueAt(row, 1), // POS
+                        (String) tableModel.getValueAt(row, 2), // Phonetic
+                        (String) tableModel.getValueAt(row, 3), // Vietnamese
+                        (String) tableModel.getValueAt(row, 4), // Definition
+                        (String) tableModel.getValueAt(row, 5), // Example
+                        null  // ImagePath
+                    );
+                    boolean fromHistory = fromHistoryClick;
                     fromHistoryClick = false;
+                    DictionaryClient current = client;
+                    if (current == null) {
+                        showSelectedWord(List.of(), fromTable, fromHistory);
+                        return;
+                    }
+                    // Lấy lại Word object từ server (chạy nền, thường trúng cache) để có đầy đủ thông tin ảnh
+                    detailTask.submit(() -> current.searchWordAsync(fromTable.getEnglishWord()),
+                            fullWords -> showSelectedWord(fullWords, fromTable, fromHistory),
+                            error -> showSelectedWord(List.of(), fromTable, fromHistory));
                 }
             }
         });
         
     }
 
+    /** Hiển thị từ vừa chọn trong bảng: ưu tiên bản từ server cùng từ loại với dòng đã chọn */
+    private void showSelectedWord(List<Word> fullWords, Word fromTable, boolean fromHistory) {
+        Word w = null;
+        if (!fullWords.isEmpty()) {
+            // Tìm từ có cùng từ loại
+            for (Word word : fullWords) {
+                if (word.getPartOfSpeech().equals(fromTable.getPartOfSpeech())) {
+                    w = word;
+                    break;
+                }
+            }
+            if (w == null) w = fullWords.get(0); // Fallback
+        } else {
+            w = fromTable;
+        }
+        displayWordDetails(
+                w.getEnglishWord(),
+                w.getPartOfSpeech(),
+                w.getPhoneticSpelling(),
+                w.getVietnameseMeaning(),
+                w.getDetailedDefinition(),
+                w.getExampleSentence(),
+                w.getImagePath() // ✅
+        );
+
+        if (!fromHistory) {
+            String dir = (String) directionCombo.getSelectedItem();
+            addHistoryItem(dir, w);   // 👉 chỉ lưu khi user chọn chi tiết
+
+            // Ghi log CSV khi user chọn từ trong bảng
+            csvLogger.logSearch(w.getEnglishWord(), dir, w);
+        }
+    }
+
+    /** Kết nối (lại) trên thread nền; trong lúc chờ, giao diện vẫn dùng được và báo đang kết nối */
     private void connectToServer() {
-        try {
-            if (client != null) {
-                client.disconnect();
+        if (connectTask.isBusy()) return;
+        DictionaryClient old = client;
+        client = null;
+        connected = false;
+        updateConnectionUI(false);
+        connectionStatusLabel.setText("ĐANG KẾT NỐI...");
+        connectionStatusLabel.setForeground(MaterialUIUtils.PRIMARY_COLOR);
+        reconnectButton.setVisible(false);
+        connectTask.submitBlocking(() -> {
+            if (old != null) {
+                old.close();
             }
-            client = new DictionaryClient();
+            return new DictionaryClient();
+        }, newClient -> {
+            client = newClient;
+            connected = true;
             updateConnectionUI(true);
             showMessageCard("Đã kết nối đến server thành công!\nNhập từ để bắt đầu tra cứu.");
             JOptionPane.showMessageDialog(this, 
                 "Kết nối thành công đến server!", 
                 "Thông báo", 
                 JOptionPane.INFORMATION_MESSAGE);
-        } catch (IOException e) {
+        }, e -> {
             updateConnectionUI(false);
             showMessageCard("✗ Không thể kết nối đến server.\nVui lòng kiểm tra:\n• Server đã được khởi động chưa?\n• Cổng 12345 có bị chặn không?");
             JOptionPane.showMessageDialog(this, 
                 "Không thể kết nối đến server!\n\n" +
-                "Lỗi: " + e.getMessage() + "\n\n" +
+                "Lỗi: " + errorMessage(e) + "\n\n" +
                 "Vui lòng:\n" +
                 "1. Kiểm tra server đã được khởi động\n" +
                 "2. Đảm bảo cổng 12345 không bị chặn\n" +
                 "3. Nhấn nút 'Kết nối lại' để thử lại", 
                 "Lỗi kết nối", 
                 JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void updateConnectionUI(boolean connected) {
@@ -526,14 +583,36 @@ private void addHistoryItem(String directionLabel, Word w) {
     }
 
     private void startConnectionMonitor() {
-        connectionTimer = new Timer(2000, e -> {
-            boolean connected = client != null && client.isConnected();
-            updateConnectionUI(connected);
-        });
+        connectionTimer = new Timer(2000, e -> checkConnection());
         connectionTimer.setInitialDelay(0);
         connectionTimer.start();
     }
 
+    /**
+     * Kiểm tra trên thread nền: thường chỉ đọc trạng thái client suy ra từ lưu lượng, nhưng kết nối im lặng
+     * lâu thì client gửi PING (chờ tới 1 giây); mỗi lúc chỉ một lần kiểm tra
+     */
+    private void checkConnection() {
+        if (checkingConnection || connectTask.isBusy()) return;
+        DictionaryClient current = client;
+        if (current == null) {
+            connected = false;
+            updateConnectionUI(false);
+            return;
+        }
+        checkingConnection = true;
+        background.execute(() -> {
+            boolean alive = current.isConnected();
+            SwingUtilities.invokeLater(() -> {
+                checkingConnection = false;
+                // Đã kết nối lại trong lúc kiểm tra: kết quả thuộc kết nối cũ
+                if (current != client) return;
+                connected = alive;
+                updateConnectionUI(alive);
+            });
+        });
+    }
+
     private void performSearch() {
         String word = searchField.getText().trim();
         performSearchWithText(word, true); // Log activity
@@ -548,47 +627,53 @@ private void addHistoryItem(String directionLabel, Word w) {
         if (word.isEmpty()) {
             showMessageCard("Nhập từ để bắt đầu tra cứu.");
             tableModel.setRowCount(0);
+            resetPaging();
             return;
         }
 
-        if (client == null || !client.isConnected()) {
+        DictionaryClient current = client;
+        if (current == null || !connected) {
             showMessageCard("Không có kết nối đến server!");
             return;
         }
 
         String direction = (String) directionCombo.getSelectedItem();
-        List<Word> results;
-        String header;
-        
-        // Tìm kiếm chính xác trước, nếu không có thì tìm chứa
-        if ("Anh → Việt".equals(direction)) {
-            results = client.searchWord(word);
-            if (results.isEmpty()) {
-                results = client.searchWordsContaining(word);
-                header = "Các từ chứa \"" + word + "\"";
-            } else {
-                header = "Kết quả cho từ \"" + word + "\"";
-            }
-        } else {
-            results = client.searchVietnameseWord(word);
-            if (results.isEmpty()) {
-                results = client.searchVietnameseWordsContaining(word);
-                header = "Các từ Việt chứa \"" + word + "\"";
-            } else {
-                header = "Kết quả cho từ Việt \"" + word + "\"";
-            }
-        }
-        
-        displaySearchResults(results, header);
-    
-        // Chỉ log khi user chủ động tìm kiếm và có kết quả
-        if (logActivity && !fromHistoryClick && results.size() == 1) {
-            String dir = (String) directionCombo.getSelectedItem();
-            addHistoryItem(dir, results.get(0));
-            csvLogger.logSearch(word, dir, results.get(0));
-        }
+        boolean english = "Anh → Việt".equals(direction);
+        boolean fromHistory = fromHistoryClick;
         fromHistoryClick = false;
-        SwingUtilities.invokeLater(() -> searchField.requestFocusInWindow());
+        Function<String, CompletableFuture<WordPage>> loader = english
+                ? cursor -> current.searchWordsContainingAsync(word, PAGE_SIZE, cursor)
+                : cursor -> current.searchVietnameseWordsContainingAsync(word, PAGE_SIZE, cursor);
+
+        BiConsumer<List<Word>, String> show = (results, header) -> {
+            displaySearchResults(results, header);
+
+            // Chỉ log khi user chủ động tìm kiếm và có kết quả
+            if (logActivity && !fromHistory && results.size() == 1) {
+                addHistoryItem(direction, results.get(0));
+                csvLogger.logSearch(word, direction, results.get(0));
+            }
+            searchField.requestFocusInWindow();
+        };
+
+        // Tìm kiếm chính xác trước, nếu không có thì tìm chứa (cả hai chạy nền)
+        resetPaging();
+        searchTask.submit(() -> english ? current.searchWordAsync(word) : current.searchVietnameseWordAsync(word),
+                exact -> {
+                    if (!exact.isEmpty()) {
+                        show.accept(exact, english
+                                ? "Kết quả cho từ \"" + word + "\""
+                                : "Kết quả cho từ Việt \"" + word + "\"");
+                        return;
+                    }
+                    searchTask.submit(() -> loader.apply(null), page -> {
+                        pageLoader = loader;
+                        nextPageCursor = page.getNextCursor();
+                        show.accept(page.getWords(), english
+                                ? "Các từ chứa \"" + word + "\""
+                                : "Các từ Việt chứa \"" + word + "\"");
+                    }, this::showSearchError);
+                }, this::showSearchError);
     }
     
 
@@ -599,34 +684,68 @@ private void addHistoryItem(String directionLabel, Word w) {
             return;
         }
 
-        String direction = (String) directionCombo.getSelectedItem();
-        List<Word> results;
-        String header;
-    
-        if ("Anh → Việt".equals(direction)) {
-            results = client.searchWordsContaining(key);
-            header = "Các từ chứa \"" + key + "\"";
-        } else {
-            results = client.searchVietnameseWordsContaining(key);
-            header = "Các từ Việt chứa \"" + key + "\"";
-        }
-    
-        displaySearchResults(results, header);
-    
-        // ✅ Nếu chỉ có 1 kết quả thì show chi tiết và ghi log CSV
-        if (results.size() == 1) {
-            Word w = results.get(0);
-            displayWordDetails(
-                    w.getEnglishWord(), w.getPartOfSpeech(), w.getPhoneticSpelling(),
-                    w.getVietnameseMeaning(), w.getDetailedDefinition(), w.getExampleSentence(), w.getImagePath()
-            );
-            
-            // Ghi log CSV cho tìm kiếm chứa
-            csvLogger.logSearch(key, direction, w);
+        DictionaryClient current = client;
+        if (current == null || !connected) {
+            showMessageCard("Không có kết nối đến server!");
+            return;
         }
+
+        String direction = (String) directionCombo.getSelectedItem();
+        boolean english = "Anh → Việt".equals(direction);
+        String header = english
+                ? "Các từ chứa \"" + key + "\""
+                : "Các từ Việt chứa \"" + key + "\"";
+        Function<String, CompletableFuture<WordPage>> loader = english
+                ? cursor -> current.searchWordsContainingAsync(key, PAGE_SIZE, cursor)
+                : cursor -> current.searchVietnameseWordsContainingAsync(key, PAGE_SIZE, cursor);
+
+        // Tải trang đầu và ghi nhớ cách tải các trang sau khi người dùng cuộn
+        resetPaging();
+        searchTask.submit(() -> loader.apply(null), page -> {
+            pageLoader = loader;
+            nextPageCursor = page.getNextCursor();
+            List<Word> results = page.getWords();
+            displaySearchResults(results, header);
+
+            // ✅ Nếu chỉ có 1 kết quả thì show chi tiết và ghi log CSV
+            if (results.size() == 1) {
+                Word w = results.get(0);
+                displayWordDetails(
+                        w.getEnglishWord(), w.getPartOfSpeech(), w.getPhoneticSpelling(),
+                        w.getVietnameseMeaning(), w.getDetailedDefinition(), w.getExampleSentence(), w.getImagePath()
+                );
+
+                // Ghi log CSV cho tìm kiếm chứa
+                csvLogger.logSearch(key, direction, w);
+            }
+        }, this::showSearchError);
+    }
+
+    private void showSearchError(Throwable error) {
+        System.err.println("Lỗi tra cứu: " + errorMessage(error));
+        showMessageCard("Không thể tra cứu: " + errorMessage(error));
+    }
+
+    private static String errorMessage(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    private void resetPaging() {
+        pageTask.cancel();
+        pageLoader = null;
+        nextPageCursor = null;
+    }
+
+    private void loadNextPage() {
+        if (pageTask.isBusy() || pageLoader == null || nextPageCursor == null) return;
+        String cursor = nextPageCursor;
+        pageTask.submit(() -> pageLoader.apply(cursor), page -> {
+            nextPageCursor = page.getNextCursor();
+            for (Word w : page.getWords()) {
+                addResultRow(w);
+            }
+        }, error -> System.err.println("Lỗi tải trang kết quả: " + errorMessage(error)));
     }
-    
-    
 
     private void displaySearchResults(List<Word> words, String header) {
     tableModel.setRowCount(0);
@@ -635,16 +754,16 @@ private void addHistoryItem(String directionLabel, Word w) {
         return;
     }
     for (Word w : words) {
-        // Tạo icon ảnh nhỏ cho bảng
+        addResultRow(w);
+    }
+    showMessageCard(header + " (" + words.size() + (nextPageCursor != null ? "+" : "") + " kết quả)");
+}
+
+    private void addResultRow(Word w) {
+        // Bảng chỉ ghi có/không có ảnh; ảnh được đọc khi mở chi tiết
         String imageDisplay = "Không có";
         if (w.getImagePath() != null && !w.getImagePath().isEmpty()) {
-            try {
-                ImageIcon icon = new ImageIcon(w.getImagePath());
-                Image img = icon.getImage().getScaledInstance(40, 40, Image.SCALE_SMOOTH);
-                imageDisplay = "Có ảnh";
-            } catch (Exception e) {
-                imageDisplay = "Lỗi ảnh";
-            }
+            imageDisplay = "Có ảnh";
         }
         
         tableModel.addRow(new Object[]{
@@ -653,8 +772,6 @@ private void addHistoryItem(String directionLabel, Word w) {
                 imageDisplay
         });
     }
-    showMessageCard(header + " (" + words.size() + " kết quả)");
-}
 
 private void displayWordDetails(String eng, String pos, String phon, 
                                 String vn, String def, String ex, String imgPath) {
@@ -678,98 +795,121 @@ private void displayWordDetails(String eng, String pos, String phon,
         detailContentPanel.add(Box.createVerticalStrut(12));
     }
 
-    // ✅ Ảnh minh họa
+    // ✅ Ảnh minh họa: đọc và thu nhỏ trên thread nền, tạm hiện thẻ "đang tải"
     if (imgPath != null && !imgPath.isEmpty()) {
-        try {
-            java.io.File imageFile = new java.io.File(imgPath);
-            if (imageFile.exists()) {
-                ImageIcon icon = new ImageIcon(imgPath);
-                
-                // Kiểm tra xem có phải GIF không
-                boolean isGif = imgPath.toLowerCase().endsWith(".gif");
-                
-                // Tính toán kích thước ảnh phù hợp
-                int originalWidth = icon.getIconWidth();
-                int originalHeight = icon.getIconHeight();
-                int maxSize = 250;
-                
-                JLabel imgLabel;
-                
-                if (isGif) {
-                    // Với GIF, giữ nguyên ImageIcon để animation hoạt động
-                    // Nhưng vẫn scale nếu quá lớn
-                    if (originalWidth > maxSize || originalHeight > maxSize) {
-                        int newWidth, newHeight;
-                        if (originalWidth > originalHeight) {
-                            newWidth = maxSize;
-                            newHeight = (originalHeight * maxSize) / originalWidth;
-                        } else {
-                            newHeight = maxSize;
-                            newWidth = (originalWidth * maxSize) / originalHeight;
-                        }
-                        // Scale GIF nhưng giữ animation
-                        Image scaledImage = icon.getImage().getScaledInstance(newWidth, newHeight, Image.SCALE_DEFAULT);
-                        imgLabel = new JLabel(new ImageIcon(scaledImage));
-                    } else {
-                        // GIF nhỏ, hiển thị nguyên bản
-                        imgLabel = new JLabel(icon);
-                    }
+        JPanel placeholder = createDetailCard("Ảnh minh họa", "Đang tải ảnh...");
+        detailContentPanel.add(placeholder);
+        detailContentPanel.add(Box.createVerticalStrut(12));
+        imageTask.submitBlocking(() -> loadDetailImage(imgPath),
+                icon -> replaceDetail(placeholder, icon != null
+                        ? createImagePanel(icon)
+                        : createDetailCard("Ảnh minh họa", "File ảnh không tồn tại: " + imgPath)),
+                e -> replaceDetail(placeholder, createDetailCard("Ảnh minh họa", "Không thể tải ảnh: " + e.getMessage())));
+    } else {
+        imageTask.cancel();
+    }
+
+    detailContentPanel.revalidate();
+    detailContentPanel.repaint();
+}
+
+    /** Đọc ảnh và thu nhỏ về tối đa 250px (chạy nền); null nếu file không tồn tại */
+    private static ImageIcon loadDetailImage(String imgPath) {
+        java.io.File imageFile = new java.io.File(imgPath);
+        if (!imageFile.exists()) {
+            return null;
+        }
+        // ImageIcon(String) chờ giải mã xong nên lấy được kích thước ngay
+        ImageIcon icon = new ImageIcon(imgPath);
+
+        // Kiểm tra xem có phải GIF không
+        boolean isGif = imgPath.toLowerCase().endsWith(".gif");
+        
+        // Tính toán kích thước ảnh phù hợp
+        int originalWidth = icon.getIconWidth();
+        int originalHeight = icon.getIconHeight();
+        int maxSize = 250;
+        
+        ImageIcon scaled;
+        
+        if (isGif) {
+            // Với GIF, giữ nguyên ImageIcon để animation hoạt động
+            // Nhưng vẫn scale nếu quá lớn
+            if (originalWidth > maxSize || originalHeight > maxSize) {
+                int newWidth, newHeight;
+                if (originalWidth > originalHeight) {
+                    newWidth = maxSize;
+                    newHeight = (originalHeight * maxSize) / originalWidth;
                 } else {
-                    // Với ảnh tĩnh, dùng SCALE_SMOOTH cho chất lượng tốt
-                    int newWidth, newHeight;
-                    if (originalWidth > originalHeight) {
-                        newWidth = maxSize;
-                        newHeight = (originalHeight * maxSize) / originalWidth;
-                    } else {
-                        newHeight = maxSize;
-                        newWidth = (originalWidth * maxSize) / originalHeight;
-                    }
-                    Image img = icon.getImage().getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-                    imgLabel = new JLabel(new ImageIcon(img));
+                    newHeight = maxSize;
+                    newWidth = (originalWidth * maxSize) / originalHeight;
                 }
-                
-                imgLabel.setHorizontalAlignment(SwingConstants.CENTER);
-                
-                // Tạo panel chứa ảnh với viền đẹp
-                JPanel imagePanel = new JPanel(new BorderLayout()) {
-                    @Override
-                    protected void paintComponent(Graphics g) {
-                        super.paintComponent(g);
-                        Graphics2D g2 = (Graphics2D) g.create();
-                        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                        g2.setColor(Color.WHITE);
-                        g2.fillRoundRect(0, 0, getWidth(), getHeight(), 12, 12);
-                        g2.setColor(new Color(0, 0, 0, 30));
-                        g2.fillRoundRect(4, 4, getWidth() - 8, getHeight() - 8, 12, 12);
-                        g2.dispose();
-                    }
-                };
-                imagePanel.setOpaque(false);
-                imagePanel.setBorder(BorderFactory.createEmptyBorder(16, 16, 16, 16));
-                
-                JLabel titleLabel = new JLabel("Ảnh minh họa");
-                titleLabel.setFont(new Font("Segoe UI Semibold", Font.PLAIN, 15));
-                titleLabel.setForeground(new Color(26, 115, 232));
-                titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
-                
-                imagePanel.add(titleLabel, BorderLayout.NORTH);
-                imagePanel.add(imgLabel, BorderLayout.CENTER);
-                
-                detailContentPanel.add(imagePanel);
-                detailContentPanel.add(Box.createVerticalStrut(12));
+                // Scale GIF nhưng giữ animation
+                Image scaledImage = icon.getImage().getScaledInstance(newWidth, newHeight, Image.SCALE_DEFAULT);
+                scaled = new ImageIcon(scaledImage);
+            } else {
+                // GIF nhỏ, hiển thị nguyên bản
+                scaled = icon;
+            }
+        } else {
+            // Với ảnh tĩnh, dùng SCALE_SMOOTH cho chất lượng tốt
+            int newWidth, newHeight;
+            if (originalWidth > originalHeight) {
+                newWidth = maxSize;
+                newHeight = (originalHeight * maxSize) / originalWidth;
             } else {
-                detailContentPanel.add(createDetailCard("Ảnh minh họa", "File ảnh không tồn tại: " + imgPath));
-                detailContentPanel.add(Box.createVerticalStrut(12));
+                newHeight = maxSize;
+                newWidth = (originalWidth * maxSize) / originalHeight;
             }
-        } catch (Exception e) {
-            detailContentPanel.add(createDetailCard("Ảnh minh họa", "Không thể tải ảnh: " + e.getMessage()));
-            detailContentPanel.add(Box.createVerticalStrut(12));
+            Image img = icon.getImage().getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
+            scaled = new ImageIcon(img);
         }
+        return scaled;
     }
 
-    detailContentPanel.revalidate();
-    detailContentPanel.repaint();
-}
+    private JPanel createImagePanel(ImageIcon icon) {
+        JLabel imgLabel = new JLabel(icon);
+        imgLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        
+        // Tạo panel chứa ảnh với viền đẹp
+        JPanel imagePanel = new JPanel(new BorderLayout()) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setColor(Color.WHITE);
+                g2.fillRoundRect(0, 0, getWidth(), getHeight(), 12, 12);
+                g2.setColor(new Color(0, 0, 0, 30));
+                g2.fillRoundRect(4, 4, getWidth() - 8, getHeight() - 8, 12, 12);
+                g2.dispose();
+            }
+        };
+        imagePanel.setOpaque(false);
+        imagePanel.setBorder(BorderFactory.createEmptyBorder(16, 16, 16, 16));
+        
+        JLabel titleLabel = new JLabel("Ảnh minh họa");
+        titleLabel.setFont(new Font("Segoe UI Semibold", Font.PLAIN, 15));
+        titleLabel.setForeground(new Color(26, 115, 232));
+        titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        
+        imagePanel.add(titleLabel, BorderLayout.NORTH);
+        imagePanel.add(imgLabel, BorderLayout.CENTER);
+        return imagePanel;
+    }
+
+    /** Thay thẻ tạm bằng nội dung thật, nếu khung chi tiết vẫn đang hiện thẻ đó */
+    private void replaceDetail(JComponent placeholder, JComponent content) {
+        for (int i = 0; i < detailContentPanel.getComponentCount(); i++) {
+            if (detailContentPanel.getComponent(i) == placeholder) {
+                detailContentPanel.remove(i);
+                detailContentPanel.add(content, i);
+                detailContentPanel.revalidate();
+                detailContentPanel.repaint();
+                return;
+            }
+        }
+    }
 
 
 
@@ -832,11 +972,15 @@ contentLabel.setBorder(null);
         showMessageCard("Nhập từ để bắt đầu tra cứu.");
         tableModel.setRowCount(0);
         wordTable.clearSelection();
+        resetPaging();
     }
 
     @Override
     public void dispose() {
-        if (client != null) client.disconnect();
+        if (connectionTimer != null) connectionTimer.stop();
+        background.shutdown();
+        DictionaryClient current = client;
+        if (current != null) current.close();
         super.dispose();
     }
 
@@ -0,0 +1,129 @@
+package com.dictionary.client;
+
+import com.dictionary.model.Word;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bộ nhớ đệm kết quả tra cứu phía client (SEARCH, SEARCH_VIETNAMESE và hai lệnh tìm chứa),
+ * khóa theo lệnh + từ khóa viết thường. Giới hạn số mục (bỏ mục ít dùng nhất) và tuổi thọ mỗi mục.
+ *
+ * Chỉ dùng khi server đã nhận INVALIDATE: mỗi lần một từ thay đổi, server gửi INVALIDATE|từ và
+ * invalidate() bỏ các mục có thể bị ảnh hưởng. Tuổi thọ chỉ là lưới an toàn khi lỡ một thông báo.
+ */
+class LookupCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Tăng mỗi lần hủy mục: phản hồi của yêu cầu gửi trước lần hủy không được đưa vào cache nữa
+    private long generation;
+    private long hits;
+    private long misses;
+
+    private static final class Entry {
+        final String command;
+        final String argument;
+        final List<Word> words;
+        final Set<String> englishWords;
+        final long expiresAt;
+
+        Entry(String command, String argument, List<Word> words, long expiresAt) {
+            this.command = command;
+            this.argument = argument;
+            this.words = words;
+            this.englishWords = new HashSet<>();
+            for (Word word : words) {
+                if (word.getEnglishWord() != null) {
+                    englishWords.add(word.getEnglishWord().toLowerCase(Locale.ROOT));
+                }
+            }
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    LookupCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    /** Bản sao kết quả đã lưu (người gọi được sửa danh sách), hoặc null nếu không có/đã hết hạn */
+    synchronized List<Word> get(String command, String argument) {
+        String key = command + '|' + argument.toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(entry.words);
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /** Lưu kết quả; bỏ qua nếu đã có thông báo thay đổi kể từ lúc gửi yêu cầu (startGeneration) */
+    synchronized void put(String command, String argument, List<Word> words, long startGeneration) {
+        if (startGeneration != generation) {
+            return;
+        }
+        String key = command + '|' + argument.toLowerCase(Locale.ROOT);
+        entries.put(key, new Entry(command, argument.toLowerCase(Locale.ROOT),
+                Collections.unmodifiableList(new ArrayList<>(words)), System.nanoTime() + ttlNanos));
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * englishWord vừa được thêm/sửa/xóa: bỏ mục có từ đó trong kết quả, mục tra đúng từ đó và mục tìm
+     * chứa mà từ khóa nằm trong từ. Không biết nghĩa mới nên bỏ mọi mục tra theo tiếng Việt.
+     */
+    synchronized void invalidate(String englishWord) {
+        generation++;
+        String word = englishWord.toLowerCase(Locale.ROOT);
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.englishWords.contains(word) || matches(entry, word)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean matches(Entry entry, String word) {
+        switch (entry.command) {
+            case "SEARCH":
+                return entry.argument.equals(word);
+            case "SEARCH_CONTAINING":
+                return word.contains(entry.argument);
+            default:
+                return true;
+        }
+    }
+
+    /** Bỏ toàn bộ, khi kết nối mới (có thể đã lỡ thông báo trong lúc mất kết nối) */
+    synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized String stats() {
+        return String.format("cache client: %d mục, hit %d / miss %d (%.1f%%)", entries.size(), hits, misses,
+                hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses));
+    }
+}
@@ -0,0 +1,31 @@
+package com.dictionary.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thời gian chờ trước mỗi lần kết nối lại: tăng gấp đôi sau mỗi lần thất bại (tối đa maxMs) và lấy
+ * ngẫu nhiên trong [0, mức hiện tại]. Nhờ phần ngẫu nhiên, hàng trăm client mất kết nối cùng lúc
+ * (server khởi động lại) không kết nối lại cùng một thời điểm.
+ */
+class ReconnectBackoff {
+    private final long baseMs;
+    private final long maxMs;
+    private int failures;
+
+    ReconnectBackoff(long baseMs, long maxMs) {
+        this.baseMs = Math.max(1, baseMs);
+        this.maxMs = Math.max(this.baseMs, maxMs);
+    }
+
+    /** Thời gian chờ cho lần thử kế tiếp (ms) */
+    synchronized long nextDelayMs() {
+        long ceiling = Math.min(maxMs, baseMs << Math.min(failures, 30));
+        failures++;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /** Đã kết nối lại: lần mất kết nối sau bắt đầu lại từ mức thấp nhất */
+    synchronized void reset() {
+        failures = 0;
+    }
+}
@@ -1,24 +1,53 @@
 package com.dictionary.database;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Class quản lý ket noi cơ sở dữ liệu MySQL
+ *
+ * Mỗi lần getConnection() trả về một kết nối riêng lấy từ pool: DAO dùng try-with-resources như cũ,
+ * close() chỉ trả kết nối về pool. Nhờ vậy nhiều truy vấn (kể cả con trỏ đọc dạng luồng) chạy song song
+ * không dùng chung, không đóng nhầm kết nối của nhau. Pool giữ tối đa POOL_SIZE kết nối rảnh; khi tất cả
+ * đang bận thì mở thêm (số truy vấn đồng thời đã do PriorityGate của server giới hạn).
  */
 public class DatabaseConnection {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/dictionary_db?useSSL=false&serverTimezone=UTC&characterEncoding=UTF-8&useUnicode=true";
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/dictionary_db?useSSL=false&serverTimezone=UTC&characterEncoding=UTF-8&useUnicode=true&useCursorFetch=true";
     private static final String DB_USER = "root";
     private static final String DB_PASSWORD = "020901"; // Thay đổi mật khẩu theo cài đặt của bạn
-    
+    // Số kết nối rảnh giữ lại; nên không nhỏ hơn dictionary.server.dbPermits
+    private static final int POOL_SIZE = Integer.getInteger("dictionary.db.poolSize", 8);
+    // Kết nối rảnh lâu hơn chừng này được kiểm tra (isValid) trước khi dùng lại: MySQL có thể đã đóng nó
+    private static final long VALIDATE_IDLE_MS = 30 * 1000L;
+    private static final int VALIDATE_TIMEOUT_S = 1;
+
     private static DatabaseConnection instance;
-    private Connection connection;
+    // Kết nối rảnh, mới trả về nằm đầu hàng
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+    private static final class IdleConnection {
+        final Connection connection;
+        final long since;
+
+        IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.since = System.nanoTime();
+        }
+    }
 
     private DatabaseConnection() {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            this.connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            idle.push(new IdleConnection(DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD)));
             System.out.println("ket noi database thành công!");
         } catch (ClassNotFoundException | SQLException e) {
             System.err.println("Lỗi ket noi database: " + e.getMessage());
@@ -36,25 +65,131 @@ public class DatabaseConnection {
         return instance;
     }
 
+    /** Kết nối dành riêng cho người gọi đến khi close(); null nếu không kết nối được CSDL */
     public Connection getConnection() {
+        Connection physical = takeIdle();
+        if (physical == null) {
+            try {
+                physical = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            } catch (SQLException e) {
+                System.err.println("Lỗi tạo ket noi mới: " + e.getMessage());
+                return null;
+            }
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnection(physical));
+    }
+
+    /** Lấy một kết nối rảnh còn dùng được, bỏ các kết nối đã hỏng */
+    private Connection takeIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.poll();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            try {
+                boolean stale = System.nanoTime() - candidate.since > TimeUnit.MILLISECONDS.toNanos(VALIDATE_IDLE_MS);
+                if (!candidate.connection.isClosed()
+                        && (!stale || candidate.connection.isValid(VALIDATE_TIMEOUT_S))) {
+                    return candidate.connection;
+                }
+            } catch (SQLException e) {
+                // Coi như hỏng
+            }
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    private void release(Connection physical) {
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            if (physical.isClosed()) {
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            System.err.println("Lỗi tạo ket noi mới: " + e.getMessage());
+            closeQuietly(physical);
+            return;
         }
-        return connection;
+        synchronized (idle) {
+            if (idle.size() < POOL_SIZE) {
+                idle.push(new IdleConnection(physical));
+                return;
+            }
+        }
+        closeQuietly(physical);
     }
 
-    public void closeConnection() {
+    private static void closeQuietly(Connection physical) {
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Da dong ket noi database");
+            physical.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /** Đóng các kết nối rảnh; kết nối đang được dùng sẽ bị đóng khi trả về nếu pool đã đầy */
+    public void closeConnection() {
+        int closed = 0;
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.poll();
+            }
+            if (candidate == null) {
+                break;
+            }
+            try {
+                candidate.connection.close();
+                closed++;
+            } catch (SQLException e) {
+                System.err.println("Lỗi khi dong ket noi: " + e.getMessage());
+            }
+        }
+        if (closed > 0) {
+            System.out.println("Da dong ket noi database");
+        }
+    }
+
+    /** Kết nối cho một người dùng: close() trả kết nối thật về pool, sau đó không dùng được nữa */
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Kết nối đã được trả về pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
             }
-        } catch (SQLException e) {
-            System.err.println("Lỗi khi dong ket noi: " + e.getMessage());
         }
     }
 }
@@ -4,25 +4,62 @@ import com.dictionary.model.Word;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object cho việc thao tác với bảng từ điển
  */
 public class DictionaryDAO {
+    // Số dòng mỗi lần lấy từ con trỏ phía MySQL khi duyệt dạng luồng (cần useCursorFetch=true trong URL)
+    private static final int STREAM_FETCH_SIZE = 500;
+    // Số tham số tối đa trong một câu IN (...) / OR, lô lớn hơn được chia nhiều truy vấn
+    private static final int MAX_BATCH_PARAMS = 500;
+
+    /** Nhận thông báo khi dữ liệu của một từ vừa được thêm/sửa/xóa thành công */
+    public interface WordChangeListener {
+        void wordChanged(String englishWord);
+    }
+
+    // Dùng chung cho mọi DictionaryDAO: GUI quản trị và server tạo DAO riêng nhưng cùng một CSDL
+    private static final List<WordChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
     private DatabaseConnection dbConnection;
 
     public DictionaryDAO() {
         this.dbConnection = DatabaseConnection.getInstance();
     }
 
+    public static void addChangeListener(WordChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeChangeListener(WordChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private static void fireWordChanged(String englishWord) {
+        for (WordChangeListener listener : changeListeners) {
+            try {
+                listener.wordChanged(englishWord);
+            } catch (RuntimeException e) {
+                System.err.println("Lỗi thông báo thay đổi từ: " + e.getMessage());
+            }
+        }
+    }
+
     /** Tìm kiếm từ tiếng Anh */
     public List<Word> searchWord(String englishWord) {
         List<Word> results = new ArrayList<>();
         String sql = "SELECT * FROM dictionary WHERE english_word = ? ORDER BY part_of_speech";
 
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = track(conn.prepareStatement(sql))) {
 
             stmt.setString(1, englishWord.toLowerCase());
             ResultSet rs = stmt.executeQuery();
@@ -36,12 +73,51 @@ public class DictionaryDAO {
         return results;
     }
 
+    /**
+     * Tra nhiều từ tiếng Anh bằng một truy vấn WHERE english_word IN (...).
+     * Kết quả nhóm theo từ (viết thường), giữ thứ tự đầu vào; từ không có trong từ điển có danh sách rỗng.
+     */
+    public Map<String, List<Word>> searchWords(Collection<String> englishWords) {
+        Map<String, List<Word>> results = new LinkedHashMap<>();
+        for (String englishWord : englishWords) {
+            results.putIfAbsent(englishWord.toLowerCase(), new ArrayList<>());
+        }
+        List<String> keys = new ArrayList<>(results.keySet());
+        for (int from = 0; from < keys.size(); from += MAX_BATCH_PARAMS) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + MAX_BATCH_PARAMS));
+            String sql = "SELECT * FROM dictionary WHERE english_word IN ("
+                    + String.join(",", Collections.nCopies(batch.size(), "?"))
+                    + ") ORDER BY english_word, part_of_speech";
+
+            try (Connection conn = dbConnection.getConnection();
+                 PreparedStatement stmt = track(conn.prepareStatement(sql))) {
+
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+
+                while (rs.next()) {
+                    Word word = mapResultSetToWord(rs);
+                    List<Word> group = results.get(word.getEnglishWord().toLowerCase());
+                    if (group != null) {
+                        group.add(word);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Lỗi tra nhiều từ: " + e.getMessage());
+            }
+        }
+        return results;
+    }
+
     /** Thêm từ mới */
     public boolean addWord(Word word) {
         String sql = "INSERT INTO dictionary (english_word, part_of_speech, phonetic_spelling, " +
                 "vietnamese_meaning, detailed_definition, example_sentence, image_path) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?)";
 
+        boolean changed = false;
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -54,11 +130,15 @@ public class DictionaryDAO {
             stmt.setString(7, word.getImagePath());
 
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            changed = rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Lỗi thêm từ: " + e.getMessage());
-            return false;
         }
+        // Báo sau khi đã trả kết nối để bên nhận có thể truy vấn lại ngay
+        if (changed) {
+            fireWordChanged(word.getEnglishWord().toLowerCase());
+        }
+        return changed;
     }
 
     /** Cập nhật thông tin từ */
@@ -67,6 +147,7 @@ public class DictionaryDAO {
                 "vietnamese_meaning = ?, detailed_definition = ?, example_sentence = ?, image_path = ? " +
                 "WHERE english_word = ? AND part_of_speech = ?";
 
+        boolean changed = false;
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -79,17 +160,21 @@ public class DictionaryDAO {
             stmt.setString(7, word.getPartOfSpeech());
 
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            changed = rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Lỗi cập nhật từ: " + e.getMessage());
-            return false;
         }
+        if (changed) {
+            fireWordChanged(word.getEnglishWord().toLowerCase());
+        }
+        return changed;
     }
 
     /** Xóa 1 nghĩa cụ thể */
     public boolean deleteWord(String englishWord, String partOfSpeech) {
         String sql = "DELETE FROM dictionary WHERE english_word = ? AND part_of_speech = ?";
 
+        boolean changed = false;
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -97,28 +182,35 @@ public class DictionaryDAO {
             stmt.setString(2, partOfSpeech);
 
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            changed = rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Lỗi xóa từ: " + e.getMessage());
-            return false;
         }
+        if (changed) {
+            fireWordChanged(englishWord.toLowerCase());
+        }
+        return changed;
     }
 
     /** Xóa tất cả nghĩa của một từ */
     public boolean deleteAllMeanings(String englishWord) {
         String sql = "DELETE FROM dictionary WHERE english_word = ?";
 
+        boolean changed = false;
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, englishWord.toLowerCase());
 
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            changed = rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Lỗi xóa từ: " + e.getMessage());
-            return false;
         }
+        if (changed) {
+            fireWordChanged(englishWord.toLowerCase());
+        }
+        return changed;
     }
 
     /** Tìm kiếm từ chứa keyword */
@@ -127,7 +219,7 @@ public class DictionaryDAO {
         String sql = "SELECT * FROM dictionary WHERE english_word LIKE ? ORDER BY english_word, part_of_speech";
 
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = track(conn.prepareStatement(sql))) {
 
             stmt.setString(1, "%" + keyword.toLowerCase() + "%");
             ResultSet rs = stmt.executeQuery();
@@ -141,13 +233,58 @@ public class DictionaryDAO {
         return words;
     }
 
+    /**
+     * Tìm từ chứa keyword theo trang: tối đa limit từ đứng sau (afterWord, afterPartOfSpeech)
+     * theo thứ tự (english_word, part_of_speech). Trang đầu truyền afterWord = null.
+     */
+    public List<Word> searchWordsContaining(String keyword, int limit, String afterWord, String afterPartOfSpeech) {
+        return searchPage("english_word", "%" + keyword.toLowerCase() + "%", limit,
+                afterWord, afterPartOfSpeech, "Lỗi tìm kiếm từ: ");
+    }
+
+    /** Như searchWordsContaining(keyword, limit, ...) nhưng tìm trong nghĩa tiếng Việt */
+    public List<Word> searchVietnameseWordsContaining(String keyword, int limit, String afterWord, String afterPartOfSpeech) {
+        return searchPage("vietnamese_meaning", "%" + keyword + "%", limit,
+                afterWord, afterPartOfSpeech, "Lỗi tìm kiếm từ Việt chứa: ");
+    }
+
+    /** Phân trang theo khóa (keyset) nên trang sau không phải quét lại các dòng đã trả như OFFSET */
+    private List<Word> searchPage(String column, String pattern, int limit,
+                                  String afterWord, String afterPartOfSpeech, String errorMessage) {
+        List<Word> results = new ArrayList<>();
+        String sql = "SELECT * FROM dictionary WHERE " + column + " LIKE ?"
+                + (afterWord != null ? " AND (english_word > ? OR (english_word = ? AND part_of_speech > ?))" : "")
+                + " ORDER BY english_word, part_of_speech LIMIT ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = track(conn.prepareStatement(sql))) {
+
+            int index = 1;
+            stmt.setString(index++, pattern);
+            if (afterWord != null) {
+                stmt.setString(index++, afterWord);
+                stmt.setString(index++, afterWord);
+                stmt.setString(index++, afterPartOfSpeech);
+            }
+            stmt.setInt(index, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                results.add(mapResultSetToWord(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println(errorMessage + e.getMessage());
+        }
+        return results;
+    }
+
     /** Tìm kiếm theo nghĩa tiếng Việt */
     public List<Word> searchVietnameseWord(String vietnameseWord) {
         List<Word> results = new ArrayList<>();
         String sql = "SELECT * FROM dictionary WHERE vietnamese_meaning LIKE ? ORDER BY english_word, part_of_speech";
 
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = track(conn.prepareStatement(sql))) {
 
             stmt.setString(1, "%" + vietnameseWord + "%");
             ResultSet rs = stmt.executeQuery();
@@ -167,7 +304,7 @@ public class DictionaryDAO {
         String sql = "SELECT * FROM dictionary WHERE vietnamese_meaning LIKE ? ORDER BY vietnamese_meaning, english_word";
 
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = track(conn.prepareStatement(sql))) {
 
             stmt.setString(1, "%" + keyword + "%");
             ResultSet rs = stmt.executeQuery();
@@ -199,6 +336,74 @@ public class DictionaryDAO {
         return words;
     }
 
+    /**
+     * Duyệt toàn bộ từ điển theo từng dòng, không giữ cả kết quả trong bộ nhớ.
+     * Trả về số từ đã duyệt, hoặc -1 nếu truy vấn lỗi.
+     */
+    public int forEachWord(Consumer<Word> action) {
+        return forEach("SELECT * FROM dictionary ORDER BY english_word, part_of_speech",
+                null, action, "Lỗi lấy danh sách từ: ");
+    }
+
+    /** Như searchWordsContaining nhưng đẩy từng từ cho action ngay khi đọc được */
+    public int forEachWordContaining(String keyword, Consumer<Word> action) {
+        return forEach("SELECT * FROM dictionary WHERE english_word LIKE ? ORDER BY english_word, part_of_speech",
+                "%" + keyword.toLowerCase() + "%", action, "Lỗi tìm kiếm từ: ");
+    }
+
+    /** Như searchVietnameseWordsContaining nhưng đẩy từng từ cho action ngay khi đọc được */
+    public int forEachVietnameseWordContaining(String keyword, Consumer<Word> action) {
+        return forEach("SELECT * FROM dictionary WHERE vietnamese_meaning LIKE ? ORDER BY vietnamese_meaning, english_word",
+                "%" + keyword + "%", action, "Lỗi tìm kiếm từ Việt chứa: ");
+    }
+
+    /**
+     * Con trỏ phía MySQL (useCursorFetch) giữ kết nối suốt lượt duyệt, nên luồng lấy kết nối riêng từ pool
+     * của DatabaseConnection: tra cứu chạy song song không dùng chung và không đóng được kết nối này.
+     */
+    private int forEach(String sql, String param, Consumer<Word> action, String errorMessage) {
+        try (Connection conn = dbConnection.getConnection()) {
+            if (conn == null) {
+                System.err.println(errorMessage + "không có kết nối CSDL");
+                return -1;
+            }
+            return forEach(conn, sql, param, action);
+        } catch (SQLException e) {
+            System.err.println(errorMessage + e.getMessage());
+            return -1;
+        }
+    }
+
+    private int forEach(Connection conn, String sql, String param, Consumer<Word> action) throws SQLException {
+        int count = 0;
+        try (PreparedStatement stmt = track(conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))) {
+
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            if (param != null) {
+                stmt.setString(1, param);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapResultSetToWord(rs));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Gắn câu lệnh đọc vào QueryContext của thread để hủy được khi hết hạn/bị thay thế */
+    private static PreparedStatement track(PreparedStatement stmt) throws SQLException {
+        try {
+            QueryContext.track(stmt);
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        return stmt;
+    }
+
     /** Helper: Map kết quả DB -> Word */
     private Word mapResultSetToWord(ResultSet rs) throws SQLException {
         Word word = new Word();
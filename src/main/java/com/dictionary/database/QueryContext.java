@@ -0,0 +1,97 @@
+package com.dictionary.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hạn chót và trạng thái hủy của một yêu cầu đọc. Server gắn đối tượng vào thread đang chạy
+ * lệnh (bind/unbind); DictionaryDAO đăng ký câu lệnh JDBC đang chạy qua track() để cancel()
+ * từ thread khác dừng được truy vấn ngay trên MySQL thay vì chờ nó chạy hết.
+ */
+public final class QueryContext {
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    // 0 = không có hạn chót
+    private volatile long deadlineNanos;
+    private volatile boolean cancelled;
+    private volatile Statement statement;
+
+    /** Ngữ cảnh chưa có hạn chót, chỉ dừng khi cancel() */
+    public QueryContext() {
+    }
+
+    /** Đặt hạn chót timeoutMs mili giây kể từ bây giờ */
+    public QueryContext expireAfter(long timeoutMs) {
+        long deadline = System.nanoTime() + Math.max(0, timeoutMs) * 1_000_000L;
+        deadlineNanos = deadline == 0 ? 1 : deadline;
+        return this;
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != 0;
+    }
+
+    /** Số nano giây còn lại tới hạn chót (âm nếu đã quá hạn); Long.MAX_VALUE nếu không có hạn */
+    public long remainingNanos() {
+        long deadline = deadlineNanos;
+        return deadline == 0 ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Đã bị hủy hoặc đã quá hạn: không cần làm tiếp */
+    public boolean isDone() {
+        return cancelled || isExpired();
+    }
+
+    /** Đánh dấu hủy và dừng câu lệnh JDBC đang chạy (nếu có); gọi từ thread nào cũng được */
+    public void cancel() {
+        cancelled = true;
+        Statement running = statement;
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                // Câu lệnh có thể vừa chạy xong / đã đóng: không còn gì để hủy
+            }
+        }
+    }
+
+    /** Gắn ngữ cảnh vào thread hiện tại cho các truy vấn DAO sau đó */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public static QueryContext current() {
+        return CURRENT.get();
+    }
+
+    /** DAO gọi trước khi chạy câu lệnh: từ chối ngay nếu yêu cầu đã hủy/hết hạn */
+    static void track(Statement stmt) throws SQLException {
+        QueryContext context = CURRENT.get();
+        if (context == null) return;
+        context.check();
+        context.statement = stmt;
+        // cancel() có thể đã chạy giữa lần kiểm tra và lúc gán câu lệnh
+        context.check();
+    }
+
+    private void check() throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Yêu cầu đã bị hủy");
+        }
+        if (isExpired()) {
+            throw new SQLException("Yêu cầu đã quá hạn");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.dictionary.model;
+
+/**
+ * Một gợi ý tự hoàn thành: chuỗi hiển thị/điền vào ô tìm kiếm và nghĩa ngắn đi kèm.
+ * Anh → Việt: text là từ tiếng Anh, meaning là nghĩa tiếng Việt (rút gọn).
+ * Việt → Anh: text là nghĩa tiếng Việt, meaning là từ tiếng Anh.
+ */
+public class Suggestion {
+    private final String text;
+    private final String meaning;
+
+    public Suggestion(String text, String meaning) {
+        this.text = text;
+        this.meaning = meaning;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getMeaning() {
+        return meaning;
+    }
+
+    @Override
+    public String toString() {
+        return text + " - " + meaning;
+    }
+}
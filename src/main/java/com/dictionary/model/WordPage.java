@@ -0,0 +1,30 @@
+package com.dictionary.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Một trang kết quả tìm kiếm: các từ và con trỏ để lấy trang tiếp theo
+ * (null khi đã hết kết quả).
+ */
+public class WordPage {
+    private final List<Word> words;
+    private final String nextCursor;
+
+    public WordPage(List<Word> words, String nextCursor) {
+        this.words = words != null ? words : new ArrayList<>();
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Word> getWords() {
+        return words;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
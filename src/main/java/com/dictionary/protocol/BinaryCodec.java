@@ -0,0 +1,181 @@
+package com.dictionary.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Khung nhị phân dùng sau khi client và server thỏa thuận HELLO|...,BINARY.
+ *
+ * Mỗi khung: [độ dài payload, 4 byte big-endian][payload]
+ * payload  : varint mã yêu cầu (0 = không có mã) + thân
+ * thân     : varint số trường + các trường
+ * trường   : varint (độ dài + 1) rồi các byte UTF-8; độ dài 0 nghĩa là null
+ * Nếu bit cao nhất của độ dài được bật, thân đã được nén bằng thuật toán đã thỏa thuận
+ * (mã yêu cầu luôn để nguyên để bên nhận phân phối mà không cần giải nén trước).
+ *
+ * Nhờ có độ dài nên nội dung chứa '|' hay xuống dòng không làm hỏng khung như giao thức văn bản.
+ */
+public final class BinaryCodec {
+    public static final String CAPABILITY = "BINARY";
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    private static final int COMPRESSED_FLAG = 0x80000000;
+
+    private BinaryCodec() {
+    }
+
+    /** Một khung đã giải mã: mã yêu cầu và danh sách trường */
+    public static final class Frame {
+        public final long tag;
+        public final String[] fields;
+
+        Frame(long tag, String[] fields) {
+            this.tag = tag;
+            this.fields = fields;
+        }
+    }
+
+    public static void writeFrame(OutputStream out, long tag, List<String> fields) throws IOException {
+        writeFrame(out, tag, fields, null, 0);
+    }
+
+    public static void writeFrame(OutputStream out, long tag, String[] fields) throws IOException {
+        writeFrame(out, tag, Arrays.asList(fields), null, 0);
+    }
+
+    public static void writeFrame(OutputStream out, long tag, String[] fields,
+                                  String compression, int compressThreshold) throws IOException {
+        writeFrame(out, tag, Arrays.asList(fields), compression, compressThreshold);
+    }
+
+    /** Ghi khung; nén thân nếu đã thỏa thuận thuật toán và thân đạt ngưỡng */
+    public static void writeFrame(OutputStream out, long tag, List<String> fields,
+                                  String compression, int compressThreshold) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 + fields.size() * 16);
+        writeVarint(body, fields.size());
+        if (fields instanceof WordFields) {
+            // Nối các đoạn đã mã hóa sẵn của từng từ
+            ((WordFields) fields).writeBinary(body);
+        } else {
+            for (String field : fields) {
+                writeField(body, field);
+            }
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream(10);
+        writeVarint(header, tag);
+
+        if (compression != null && body.size() >= compressThreshold) {
+            byte[] compressed = Compression.compress(compression, body.toByteArray());
+            writeInt(out, (header.size() + compressed.length) | COMPRESSED_FLAG);
+            header.writeTo(out);
+            out.write(compressed);
+        } else {
+            writeInt(out, header.size() + body.size());
+            header.writeTo(out);
+            body.writeTo(out);
+        }
+    }
+
+    /** Đọc một khung không nén; trả về null nếu luồng kết thúc đúng ranh giới khung */
+    public static Frame readFrame(InputStream in) throws IOException {
+        return readFrame(in, null);
+    }
+
+    /** Đọc một khung, giải nén thân bằng thuật toán đã thỏa thuận nếu khung có cờ nén */
+    public static Frame readFrame(InputStream in, String compression) throws IOException {
+        int b0 = in.read();
+        if (b0 < 0) {
+            return null;
+        }
+        DataInputStream data = new DataInputStream(in);
+        int header = (b0 << 24) | (data.readUnsignedByte() << 16) | (data.readUnsignedByte() << 8) | data.readUnsignedByte();
+        boolean compressed = (header & COMPRESSED_FLAG) != 0;
+        int length = header & ~COMPRESSED_FLAG;
+        if (length > MAX_FRAME_SIZE) {
+            throw new IOException("Khung nhị phân quá lớn: " + length);
+        }
+        byte[] payload = new byte[length];
+        data.readFully(payload);
+
+        int[] pos = {0};
+        long tag = readVarint(payload, pos);
+        if (compressed) {
+            if (compression == null) {
+                throw new IOException("Nhận khung nén khi chưa thỏa thuận nén");
+            }
+            byte[] body = Compression.decompress(compression,
+                    Arrays.copyOfRange(payload, pos[0], payload.length));
+            if (body.length > MAX_FRAME_SIZE) {
+                throw new IOException("Khung nhị phân quá lớn: " + body.length);
+            }
+            payload = body;
+            length = body.length;
+            pos[0] = 0;
+        }
+        int count = (int) readVarint(payload, pos);
+        if (count < 0 || count > length) {
+            throw new IOException("Số trường không hợp lệ: " + count);
+        }
+        String[] fields = new String[count];
+        for (int i = 0; i < count; i++) {
+            int len = (int) readVarint(payload, pos);
+            if (len == 0) {
+                fields[i] = null;
+                continue;
+            }
+            len--;
+            if (len > length - pos[0]) {
+                throw new IOException("Trường vượt quá khung");
+            }
+            fields[i] = new String(payload, pos[0], len, StandardCharsets.UTF_8);
+            pos[0] += len;
+        }
+        return new Frame(tag, fields);
+    }
+
+    public static void writeField(OutputStream out, String field) throws IOException {
+        if (field == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    public static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] buf, int[] pos) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= buf.length) {
+                throw new EOFException("Varint bị cắt cụt");
+            }
+            byte b = buf[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Varint quá dài");
+    }
+
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write((v >>> 24) & 0xFF);
+        out.write((v >>> 16) & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+        out.write(v & 0xFF);
+    }
+}
@@ -0,0 +1,62 @@
+package com.dictionary.protocol;
+
+import java.util.Collection;
+
+/**
+ * Bảng băm cố định các tên lệnh đã biết, tra trực tiếp trên đoạn byte của dòng yêu cầu.
+ * Trả về đúng hằng chuỗi đã đăng ký nên không phải tạo String cho tên lệnh, và
+ * switch/equals phía sau so sánh được ngay bằng tham chiếu.
+ * Chỉ nhận tên ASCII; tạo một lần rồi chỉ đọc nên dùng chung giữa các thread được.
+ */
+public final class CommandTable {
+    private final String[] slots;
+    private final int mask;
+
+    public CommandTable(Collection<String> names) {
+        int capacity = Integer.highestOneBit(Math.max(4, names.size() * 4) - 1) << 1;
+        slots = new String[capacity];
+        mask = capacity - 1;
+        for (String name : names) {
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) > 0x7F) {
+                    throw new IllegalArgumentException("Tên lệnh phải là ASCII: " + name);
+                }
+            }
+            int slot = spread(name.hashCode()) & mask;
+            while (slots[slot] != null && !slots[slot].equals(name)) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = name;
+        }
+    }
+
+    /** Tên lệnh đã đăng ký trùng với bytes[from, to), hoặc null nếu không có */
+    public String lookup(byte[] bytes, int from, int to) {
+        // Cùng công thức với String.hashCode vì tên chỉ gồm ký tự ASCII
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        int slot = spread(h) & mask;
+        String name;
+        while ((name = slots[slot]) != null) {
+            if (matches(name, bytes, from, to)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static boolean matches(String name, byte[] bytes, int from, int to) {
+        if (name.length() != to - from) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != bytes[from + i]) return false;
+        }
+        return true;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
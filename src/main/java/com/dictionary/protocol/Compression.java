@@ -0,0 +1,75 @@
+package com.dictionary.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Nén phản hồi lớn sau khi thỏa thuận HELLO|...,DEFLATE hoặc GZIP.
+ * Chế độ văn bản: dòng được thay bằng "COMPRESSED|<thuật toán>|<base64>".
+ * Chế độ nhị phân: bật bit cao của độ dài khung (xem BinaryCodec).
+ */
+public final class Compression {
+    public static final String DEFLATE = "DEFLATE";
+    public static final String GZIP = "GZIP";
+    public static final String TEXT_MARKER = "COMPRESSED";
+
+    private Compression() {
+    }
+
+    public static boolean isSupported(String algorithm) {
+        return DEFLATE.equals(algorithm) || GZIP.equals(algorithm);
+    }
+
+    public static byte[] compress(String algorithm, byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        if (GZIP.equals(algorithm)) {
+            try (OutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(data);
+            }
+            return buffer.toByteArray();
+        }
+        // Ưu tiên tốc độ: phản hồi tra từ cần độ trễ thấp hơn là tỉ lệ nén tối đa.
+        // Deflater truyền vào không được DeflaterOutputStream.close() giải phóng: tự end() để trả bộ nhớ zlib ngay
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (OutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+            out.write(data);
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    public static byte[] decompress(String algorithm, byte[] data) throws IOException {
+        InputStream in = GZIP.equals(algorithm)
+                ? new GZIPInputStream(new ByteArrayInputStream(data))
+                : new InflaterInputStream(new ByteArrayInputStream(data));
+        try (InputStream i = in) {
+            return i.readAllBytes();
+        }
+    }
+
+    /** Dòng văn bản đã nén: COMPRESSED|thuật toán|base64 */
+    public static String compressLine(String algorithm, byte[] line) throws IOException {
+        return TEXT_MARKER + TextCodec.SEPARATOR + algorithm + TextCodec.SEPARATOR
+                + Base64.getEncoder().encodeToString(compress(algorithm, line));
+    }
+
+    /** Giải nén các trường COMPRESSED|thuật toán|base64 về dòng gốc */
+    public static String decompressLine(String[] fields) throws IOException {
+        if (fields.length < 3) {
+            throw new IOException("Phản hồi nén không hợp lệ");
+        }
+        byte[] data = decompress(fields[1], Base64.getDecoder().decode(fields[2]));
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package com.dictionary.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Đọc và tách dòng yêu cầu văn bản ngay trên bộ đệm byte dùng lại của kết nối, thay cho
+ * readLine() + split("\\|"): không tạo chuỗi cho cả dòng, không dùng regex, tên lệnh đã biết
+ * lấy từ CommandTable. Số lần cấp phát giảm chứ không về 0: mỗi yêu cầu vẫn tạo mảng kết quả
+ * và một chuỗi cho từng tham số.
+ *
+ * '|' là ký tự ASCII nên tách theo byte vẫn đúng với UTF-8. Khác với split, các trường rỗng
+ * ở cuối dòng được giữ lại. Mỗi kết nối dùng một đối tượng riêng (không an toàn đa luồng).
+ */
+public final class RequestParser {
+    /** Độ dài tối đa của một dòng yêu cầu (byte); dài hơn thì kết nối bị đóng */
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 256;
+    // Sau một dòng rất dài thì trả bộ đệm về kích thước ban đầu
+    private static final int RETAINED_CAPACITY = 16 * 1024;
+
+    private final CommandTable commands;
+    private byte[] line = new byte[INITIAL_CAPACITY];
+    private int length;
+    // Vị trí bắt đầu phần yêu cầu (sau "#id|" nếu có)
+    private int start;
+    private boolean complete;
+
+    public RequestParser(CommandTable commands) {
+        this.commands = commands;
+    }
+
+    /** Dòng vượt MAX_LINE_LENGTH: phần còn lại chưa đọc nên không dùng tiếp luồng được */
+    public static final class LineTooLongException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public LineTooLongException() {
+            super("Yêu cầu quá dài (tối đa " + MAX_LINE_LENGTH + " byte)");
+        }
+    }
+
+    /**
+     * Đọc dòng tiếp theo (bỏ \r\n hoặc \n); trả về false khi hết luồng.
+     * Dòng dài hơn MAX_LINE_LENGTH thì ném LineTooLongException, bộ đệm không lớn thêm.
+     */
+    public boolean readLine(InputStream in) throws IOException {
+        clearIfComplete();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') {
+                return finish();
+            }
+            if (length >= MAX_LINE_LENGTH) {
+                throw new LineTooLongException();
+            }
+            append((byte) b);
+        }
+        return length > 0 && finish();
+    }
+
+    /**
+     * Cho NIO: lấy byte từ src cho đến hết dòng. Trả về true khi đã có đủ một dòng
+     * (phần còn lại của src để dành cho lần gọi sau), false nếu cần đọc thêm.
+     */
+    public boolean feed(ByteBuffer src) {
+        clearIfComplete();
+        while (src.hasRemaining()) {
+            byte b = src.get();
+            if (b == '\n') {
+                return finish();
+            }
+            append(b);
+        }
+        return false;
+    }
+
+    /** Số byte của dòng đang đọc dở hoặc vừa đọc xong */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Mã "#id|" ở đầu dòng: 0 nếu dòng không có mã, -1 nếu mã không phải số hợp lệ.
+     * Khi có mã hợp lệ, fields() chỉ tách phần sau mã.
+     */
+    public long tag() {
+        if (length == 0 || line[0] != '#') return 0;
+        int sep = indexOf(TextCodec.SEPARATOR, 1);
+        if (sep < 0) return 0;
+        if (sep == 1) return -1;
+        long value = 0;
+        for (int i = 1; i < sep; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) return -1;
+            value = value * 10 + digit;
+        }
+        start = sep + 1;
+        return value;
+    }
+
+    /** Các trường của dòng hiện tại; trường đầu là hằng tên lệnh nếu lệnh có trong bảng */
+    public String[] fields() {
+        int count = 1;
+        for (int i = start; i < length; i++) {
+            if (line[i] == TextCodec.SEPARATOR) count++;
+        }
+        String[] fields = new String[count];
+        int from = start;
+        int n = 0;
+        for (int i = start; i <= length; i++) {
+            if (i == length || line[i] == TextCodec.SEPARATOR) {
+                String command = n == 0 ? commands.lookup(line, from, i) : null;
+                fields[n++] = command != null ? command : new String(line, from, i - from, StandardCharsets.UTF_8);
+                from = i + 1;
+            }
+        }
+        return fields;
+    }
+
+    /** Cả dòng dạng chuỗi, chỉ dùng cho thông báo lỗi */
+    @Override
+    public String toString() {
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void append(byte b) {
+        if (length == line.length) {
+            line = Arrays.copyOf(line, length * 2);
+        }
+        line[length++] = b;
+    }
+
+    private boolean finish() {
+        if (length > 0 && line[length - 1] == '\r') length--;
+        complete = true;
+        return true;
+    }
+
+    private void clearIfComplete() {
+        if (complete) {
+            length = 0;
+            start = 0;
+            complete = false;
+            if (line.length > RETAINED_CAPACITY) {
+                line = new byte[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < length; i++) {
+            if (line[i] == c) return i;
+        }
+        return -1;
+    }
+}
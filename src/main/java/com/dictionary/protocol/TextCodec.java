@@ -0,0 +1,73 @@
+package com.dictionary.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Giao thức văn bản gốc: mỗi thông điệp là một dòng UTF-8, các trường ngăn cách bởi '|'.
+ * Đọc/ghi trực tiếp trên luồng byte để có thể chuyển sang khung nhị phân giữa chừng
+ * mà không bị bộ đệm ký tự của BufferedReader đọc lấn.
+ */
+public final class TextCodec {
+    public static final char SEPARATOR = '|';
+
+    private TextCodec() {
+    }
+
+    /** Đọc một dòng (bỏ \r\n hoặc \n); trả về null khi hết luồng */
+    public static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') {
+                return decode(line);
+            }
+            line.write(b);
+        }
+        return line.size() > 0 ? decode(line) : null;
+    }
+
+    public static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    /** Mã hóa các trường thành một dòng UTF-8 (chưa có '\n'); WordFields được nối từ các đoạn mã hóa sẵn */
+    public static byte[] encode(List<String> fields) {
+        if (!(fields instanceof WordFields)) {
+            return join(fields).getBytes(StandardCharsets.UTF_8);
+        }
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64 + fields.size() * 16);
+        try {
+            ((WordFields) fields).writeText(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toByteArray();
+    }
+
+    public static void writeLine(OutputStream out, byte[] line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    public static String join(List<String> fields) {
+        return String.join(String.valueOf(SEPARATOR), fields);
+    }
+
+    public static String join(String[] fields) {
+        return String.join(String.valueOf(SEPARATOR), fields);
+    }
+
+    private static String decode(ByteArrayOutputStream line) {
+        byte[] bytes = line.toByteArray();
+        int len = bytes.length;
+        if (len > 0 && bytes[len - 1] == '\r') len--;
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+}
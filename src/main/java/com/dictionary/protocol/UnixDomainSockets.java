@@ -0,0 +1,355 @@
+package com.dictionary.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.ProtocolFamily;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unix domain socket (AF_UNIX) cho client và server chạy trên cùng một máy: nói đúng giao thức
+ * như qua TCP nhưng không đi qua chồng TCP/IP loopback nên mỗi lượt hỏi-đáp nhanh hơn.
+ *
+ * Kênh được bọc thành Socket/ServerSocket để ClientHandler, DictionaryServer và DictionaryClient
+ * dùng lại nguyên mã của TCP (kể cả setSoTimeout). Cần JDK 16+; các API mới được gọi qua
+ * reflection để vẫn biên dịch được với JDK cũ, JVM không hỗ trợ thì mở kết nối báo IOException.
+ */
+public final class UnixDomainSockets {
+    private static final ProtocolFamily UNIX = unixFamily();
+
+    private UnixDomainSockets() {
+    }
+
+    public static boolean isSupported() {
+        return UNIX != null;
+    }
+
+    /** Kết nối tới server đang lắng nghe trên file socket path */
+    public static Socket connect(String path) throws IOException {
+        SocketAddress address = address(path);
+        SocketChannel channel = (SocketChannel) open(SocketChannel.class);
+        try {
+            channel.connect(address);
+            return new ChannelSocket(channel, address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** ServerSocket lắng nghe trên path, cho chế độ mỗi kết nối một thread */
+    public static ServerSocket bind(String path, int backlog) throws IOException {
+        return new ChannelServerSocket(openServerChannel(path, backlog));
+    }
+
+    /**
+     * Kênh lắng nghe trên path (chế độ chặn). File socket còn sót lại từ lần chạy trước bị xóa,
+     * nhưng nếu vẫn có server đang nhận kết nối trên đó thì báo lỗi chứ không cướp đường dẫn.
+     */
+    public static ServerSocketChannel openServerChannel(String path, int backlog) throws IOException {
+        SocketAddress address = address(path);
+        Path file = Paths.get(path);
+        if (Files.exists(file)) {
+            boolean inUse;
+            try (SocketChannel probe = (SocketChannel) open(SocketChannel.class)) {
+                inUse = probe.connect(address);
+            } catch (IOException e) {
+                inUse = false;
+            }
+            if (inUse) {
+                throw new IOException("Đã có server khác lắng nghe trên " + path);
+            }
+            Files.delete(file);
+        }
+        ServerSocketChannel channel = (ServerSocketChannel) open(ServerSocketChannel.class);
+        try {
+            channel.bind(address, backlog);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ProtocolFamily unixFamily() {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** UnixDomainSocketAddress.of(path) */
+    private static SocketAddress address(String path) throws IOException {
+        try {
+            return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+                    .getMethod("of", String.class).invoke(null, path);
+        } catch (InvocationTargetException e) {
+            throw new IOException("Đường dẫn socket không hợp lệ: " + path, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw unsupported();
+        }
+    }
+
+    /** SocketChannel.open(UNIX) hoặc ServerSocketChannel.open(UNIX) */
+    private static Object open(Class<?> type) throws IOException {
+        if (UNIX == null) {
+            throw unsupported();
+        }
+        try {
+            return type.getMethod("open", ProtocolFamily.class).invoke(null, UNIX);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported();
+        }
+    }
+
+    private static IOException unsupported() {
+        return new IOException("JVM không hỗ trợ Unix domain socket (cần JDK 16+)");
+    }
+
+    /** ServerSocket trả về ChannelSocket cho mỗi kết nối nhận được */
+    private static final class ChannelServerSocket extends ServerSocket {
+        private final ServerSocketChannel channel;
+
+        ChannelServerSocket(ServerSocketChannel channel) throws IOException {
+            this.channel = channel;
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            SocketChannel accepted = channel.accept();
+            try {
+                return new ChannelSocket(accepted, channel.getLocalAddress());
+            } catch (IOException e) {
+                accepted.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !channel.isOpen();
+        }
+
+        @Override
+        public boolean isBound() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getLocalSocketAddress() {
+            try {
+                return channel.getLocalAddress();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ServerSocket[unix:" + getLocalSocketAddress() + "]";
+        }
+    }
+
+    /**
+     * Socket trên SocketChannel AF_UNIX. Kênh để ở chế độ không chặn và đợi bằng Selector riêng cho
+     * chiều đọc và chiều ghi: một thread đọc và một thread ghi chạy song song không khóa lẫn nhau
+     * (Channels.newInputStream thì có), và đọc có hết thời gian như SO_TIMEOUT của TCP.
+     */
+    private static final class ChannelSocket extends Socket {
+        private final SocketChannel channel;
+        // Đường dẫn file socket, dùng làm địa chỉ đầu kia trong log
+        private final SocketAddress address;
+        private final InputStream in = new ChannelInput();
+        private final OutputStream out = new ChannelOutput();
+        private final Object selectorLock = new Object();
+        private Selector readSelector;
+        private Selector writeSelector;
+        private volatile int timeoutMs;
+
+        ChannelSocket(SocketChannel channel, SocketAddress address) throws IOException {
+            this.channel = channel;
+            this.address = address;
+            channel.configureBlocking(false);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public void setSoTimeout(int timeout) throws SocketException {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout < 0");
+            }
+            timeoutMs = timeout;
+        }
+
+        @Override
+        public int getSoTimeout() {
+            return timeoutMs;
+        }
+
+        /** Kết nối AF_UNIX luôn từ chính máy này nên được tính như loopback (vd. khi giới hạn theo IP) */
+        @Override
+        public InetAddress getInetAddress() {
+            return InetAddress.getLoopbackAddress();
+        }
+
+        @Override
+        public SocketAddress getRemoteSocketAddress() {
+            return address;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return channel.isConnected();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            synchronized (selectorLock) {
+                // Đánh thức thread đang đợi để nó thấy kết nối đã đóng
+                if (readSelector != null) readSelector.close();
+                if (writeSelector != null) writeSelector.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Socket[unix:" + address + "]";
+        }
+
+        private Selector selector(boolean write) throws IOException {
+            synchronized (selectorLock) {
+                Selector selector = write ? writeSelector : readSelector;
+                if (selector == null) {
+                    if (!channel.isOpen()) {
+                        throw new SocketException("Socket closed");
+                    }
+                    selector = Selector.open();
+                    try {
+                        channel.register(selector, write ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                    } catch (IOException e) {
+                        selector.close();
+                        throw e;
+                    }
+                    if (write) writeSelector = selector;
+                    else readSelector = selector;
+                }
+                return selector;
+            }
+        }
+
+        /** Đợi kênh đọc/ghi được; deadline 0 là đợi mãi */
+        private void await(boolean write, long deadline) throws IOException {
+            long waitMs = 0;
+            if (deadline != 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("Read timed out");
+                }
+                waitMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+            }
+            try {
+                Selector selector = selector(write);
+                selector.select(waitMs);
+                selector.selectedKeys().clear();
+            } catch (ClosedSelectorException e) {
+                throw new SocketException("Socket closed");
+            }
+            if (!channel.isOpen()) {
+                throw new SocketException("Socket closed");
+            }
+        }
+
+        private final class ChannelInput extends InputStream {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                int timeout = timeoutMs;
+                long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+                while (true) {
+                    int n = channel.read(buffer);
+                    if (n != 0) {
+                        return n;
+                    }
+                    await(false, deadline);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                ChannelSocket.this.close();
+            }
+        }
+
+        private final class ChannelOutput extends OutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public synchronized void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    if (channel.write(buffer) == 0) {
+                        await(true, 0);
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                ChannelSocket.this.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.dictionary.protocol;
+
+import com.dictionary.model.Word;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Phản hồi dạng "các trường đầu + 7 trường cho mỗi từ" (SUCCESS, ROWS, PAGE...).
+ * Đọc như một List<String> bình thường, nhưng khi ghi ra socket thì TextCodec/BinaryCodec
+ * nối thẳng các đoạn byte đã mã hóa sẵn của từng Word thay vì mã hóa lại từng trường.
+ * Các đoạn này thuộc về phản hồi (tạo ở lần ghi đầu), nên phản hồi nằm trong ResponseCache được
+ * ghi lại cho mỗi lần trúng cache mà không mã hóa lại; các Word không được sửa sau khi đã
+ * nằm trong phản hồi. Ảnh null được gửi thành chuỗi rỗng.
+ */
+public final class WordFields extends AbstractList<String> {
+    public static final int FIELDS_PER_WORD = 7;
+
+    private final List<String> head;
+    private final List<Word> words;
+    // Phần tử thứ i là 7 trường đã mã hóa của words.get(i); nhiều thread có thể cùng ghi một phản hồi
+    private final AtomicReferenceArray<byte[]> encodedText;
+    private final AtomicReferenceArray<byte[]> encodedBinary;
+
+    public WordFields(List<String> head, List<Word> words) {
+        this.head = head;
+        this.words = words;
+        this.encodedText = new AtomicReferenceArray<>(words.size());
+        this.encodedBinary = new AtomicReferenceArray<>(words.size());
+    }
+
+    public List<String> getHead() {
+        return head;
+    }
+
+    public List<Word> getWords() {
+        return words;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < head.size()) {
+            return head.get(index);
+        }
+        int offset = index - head.size();
+        return field(words.get(offset / FIELDS_PER_WORD), offset % FIELDS_PER_WORD);
+    }
+
+    @Override
+    public int size() {
+        return head.size() + words.size() * FIELDS_PER_WORD;
+    }
+
+    private static String field(Word word, int index) {
+        switch (index) {
+            case 0: return word.getEnglishWord();
+            case 1: return word.getPartOfSpeech();
+            case 2: return word.getPhoneticSpelling();
+            case 3: return word.getVietnameseMeaning();
+            case 4: return word.getDetailedDefinition();
+            case 5: return word.getExampleSentence();
+            default: return word.getImagePath() != null ? word.getImagePath() : "";
+        }
+    }
+
+    /** 7 trường của từ thứ index nối bằng '|' dạng UTF-8 (không có '|' đầu) */
+    private byte[] encodedText(int index) {
+        byte[] encoded = encodedText.get(index);
+        if (encoded == null) {
+            Word word = words.get(index);
+            StringBuilder sb = new StringBuilder(128);
+            for (int i = 0; i < FIELDS_PER_WORD; i++) {
+                if (i > 0) sb.append(TextCodec.SEPARATOR);
+                sb.append(field(word, i));
+            }
+            encoded = sb.toString().getBytes(StandardCharsets.UTF_8);
+            encodedText.set(index, encoded);
+        }
+        return encoded;
+    }
+
+    /** 7 trường của từ thứ index theo định dạng trường của BinaryCodec */
+    private byte[] encodedBinary(int index) {
+        byte[] encoded = encodedBinary.get(index);
+        if (encoded == null) {
+            Word word = words.get(index);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            try {
+                for (int i = 0; i < FIELDS_PER_WORD; i++) {
+                    BinaryCodec.writeField(buffer, field(word, i));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            encoded = buffer.toByteArray();
+            encodedBinary.set(index, encoded);
+        }
+        return encoded;
+    }
+
+    void writeText(OutputStream out) throws IOException {
+        for (int i = 0; i < head.size(); i++) {
+            if (i > 0) out.write(TextCodec.SEPARATOR);
+            String field = head.get(i);
+            if (field != null) out.write(field.getBytes(StandardCharsets.UTF_8));
+        }
+        for (int i = 0; i < words.size(); i++) {
+            out.write(TextCodec.SEPARATOR);
+            out.write(encodedText(i));
+        }
+    }
+
+    void writeBinary(OutputStream out) throws IOException {
+        for (String field : head) {
+            BinaryCodec.writeField(out, field);
+        }
+        for (int i = 0; i < words.size(); i++) {
+            out.write(encodedBinary(i));
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.dictionary.server;
+
+import com.dictionary.database.QueryContext;
+import com.dictionary.protocol.BinaryCodec;
+import com.dictionary.protocol.Compression;
+import com.dictionary.protocol.RequestParser;
+import com.dictionary.protocol.TextCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Phiên của một client trong chế độ mỗi kết nối một thread.
+ * Mặc định nói giao thức văn bản; sau HELLO có thể bật PIPELINE (yêu cầu có mã),
+ * BINARY (khung có độ dài, xem BinaryCodec) và DEFLATE/GZIP (nén phản hồi lớn).
+ * Yêu cầu có mã đang chạy hủy được bằng CANCEL|id (không có phản hồi riêng; yêu cầu bị hủy
+ * trả CANCELLED nếu chưa kịp trả lời). Kết nối đóng thì mọi yêu cầu còn chạy đều bị hủy.
+ * Client đã thỏa thuận HEARTBEAT được server gửi HEARTBEAT khi im lặng lâu và trả lời bằng
+ * HEARTBEAT (không có phản hồi); SessionReaper đóng phiên không hoạt động quá lâu.
+ * Khi server dừng (beginDrain), yêu cầu mới nhận DRAINING|lý do, còn client đã thỏa thuận DRAIN
+ * được báo trước bằng DRAIN|lý do để chủ động kết nối lại.
+ * Yêu cầu vượt hạn mức của kết nối hoặc của IP (RateLimiter) nhận ngay RATE_LIMITED|retry-after.
+ * Client đã thỏa thuận INVALIDATE được báo INVALIDATE|từ mỗi khi một từ thay đổi (InvalidationBroadcaster).
+ */
+class ClientHandler implements Runnable {
+    // Số yêu cầu có mã được xử lý đồng thời tối đa trên một kết nối
+    private static final int MAX_IN_FLIGHT = 32;
+    // Chỉ nén phản hồi từ ngưỡng này (byte); PING/PONG và tra từ nhỏ giữ nguyên để độ trễ thấp
+    private static final int COMPRESS_THRESHOLD = Integer.getInteger("dictionary.server.compressThreshold", 1024);
+    static final String DRAIN_MESSAGE = "Server đang dừng, hãy kết nối lại";
+
+    private final Socket clientSocket;
+    private final RequestProcessor processor;
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final Object writeLock = new Object();
+    private final List<ClientHandler> registry;
+    private final RequestParser parser;
+    // null = không giới hạn tốc độ
+    private final RateLimiter.Session limits;
+    // Ngữ cảnh của các yêu cầu có mã chưa trả lời xong, để CANCEL|id dừng được truy vấn
+    private final Map<Long, QueryContext> running = new ConcurrentHashMap<>();
+    private volatile boolean pipelining;
+    private volatile boolean binary;
+    private volatile String compression;
+    private volatile boolean heartbeats;
+    private volatile boolean drainNotices;
+    private volatile boolean invalidations;
+    // Các từ đã thay đổi chưa kịp báo; gộp lại để client đọc chậm không làm dồn tác vụ
+    private final Set<String> pendingInvalidations = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean invalidationScheduled = new AtomicBoolean();
+    // Server đang dừng: yêu cầu mới nhận DRAINING, yêu cầu đang chạy được làm nốt
+    private volatile boolean draining;
+    // Lần cuối nhận được dữ liệu từ client hoặc trả lời xong một yêu cầu
+    private volatile long lastActivityNanos = System.nanoTime();
+    // Số yêu cầu đang xử lý: phiên còn việc dở thì không bị coi là không hoạt động
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+    private InputStream in;
+    private OutputStream out;
+
+    ClientHandler(Socket socket, RequestProcessor processor, List<ClientHandler> registry, RateLimiter rateLimiter) {
+        this.clientSocket = socket;
+        this.processor = processor;
+        this.parser = new RequestParser(processor.commandTable());
+        this.limits = rateLimiter != null ? rateLimiter.open(socket.getInetAddress()) : null;
+        this.registry = registry;
+        this.registry.add(this);
+    }
+
+    @Override
+    public void run() {
+        try {
+            in = new BufferedInputStream(clientSocket.getInputStream());
+            out = new BufferedOutputStream(clientSocket.getOutputStream());
+
+            while (true) {
+                long tag = 0;
+                String[] request;
+                if (binary) {
+                    BinaryCodec.Frame frame = BinaryCodec.readFrame(in);
+                    if (frame == null) break;
+                    tag = frame.tag;
+                    request = frame.fields;
+                } else {
+                    try {
+                        if (!parser.readLine(in)) break;
+                    } catch (RequestParser.LineTooLongException e) {
+                        // Giống chế độ NIO: báo lỗi rồi đóng, không đọc tiếp phần còn lại của dòng
+                        writeResponse(0, List.of("ERROR", "Yêu cầu quá dài"));
+                        break;
+                    }
+                    if (pipelining) {
+                        tag = parser.tag();
+                        if (tag < 0) {
+                            writeResponse(0, List.of("ERROR", "Yêu cầu có mã không hợp lệ: " + parser));
+                            continue;
+                        }
+                    }
+                    request = parser.fields();
+                }
+                lastActivityNanos = System.nanoTime();
+                heartbeatPending.set(false);
+
+                // Tính là bận ngay khi nhận yêu cầu, trước khi xem cờ draining: server đang dừng
+                // hoặc thấy phiên bận và chờ, hoặc yêu cầu thấy cờ và bị từ chối, không lọt giữa hai bên
+                busy.incrementAndGet();
+                boolean keepOpen;
+                try {
+                    keepOpen = handle(tag, request);
+                } finally {
+                    finished();
+                }
+                if (!keepOpen) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Lỗi xử lý client: " + e.getMessage());
+        } finally {
+            // Không còn ai nhận kết quả
+            for (QueryContext context : running.values()) {
+                context.cancel();
+            }
+            if (limits != null) {
+                limits.close();
+            }
+            try {
+                if (in != null) in.close();
+                if (out != null) out.close();
+                if (clientSocket != null) clientSocket.close();
+                System.out.println("Client đã ngắt kết nối");
+            } catch (IOException e) {
+                System.err.println("Lỗi đóng kết nối client: " + e.getMessage());
+            }
+            if (registry != null) {
+                registry.remove(this);
+            }
+        }
+    }
+
+    /** Xử lý một yêu cầu vừa đọc; trả về false khi phiên kết thúc (QUIT) */
+    private boolean handle(long tag, String[] request) throws IOException {
+        // Khung nhị phân có thể mang trường null: không giả định chuỗi khác null
+        String command = request.length > 0 && request[0] != null ? request[0] : "";
+        if ("HEARTBEAT".equals(command)) {
+            return true;
+        }
+        if ("CANCEL".equals(command)) {
+            cancel(request);
+            return true;
+        }
+        if (draining && !"QUIT".equals(command)) {
+            // Yêu cầu chưa được thực hiện nên client gửi lại sang kết nối mới là an toàn
+            writeResponse(tag, List.of("DRAINING", DRAIN_MESSAGE));
+            return true;
+        }
+        if ("HELLO".equals(command)) {
+            negotiate(tag, request);
+            return true;
+        }
+        if (limits != null && !"QUIT".equals(command)) {
+            CostClass cost = processor.costOf(request);
+            long retryAfter = cost != null ? limits.tryAcquire(cost) : 0;
+            if (retryAfter > 0) {
+                // Từ chối trước khi xếp hàng nên không tốn thread bulkhead hay kết nối CSDL
+                writeResponse(tag, List.of("RATE_LIMITED", String.valueOf(retryAfter)));
+                return true;
+            }
+        }
+        if (tag != 0) {
+            dispatchTagged(tag, request);
+            return true;
+        }
+        if ("QUIT".equals(command)) {
+            // Chờ các yêu cầu đang xử lý trả lời xong rồi mới tạm biệt
+            inFlight.acquireUninterruptibly(MAX_IN_FLIGHT);
+            inFlight.release(MAX_IN_FLIGHT);
+        }
+        respondAndWait(request);
+        return !"QUIT".equals(command);
+    }
+
+    /**
+     * HELLO|cap1,cap2 -> HELLO|các cap được chấp nhận (luôn trả bằng định dạng hiện tại).
+     * PIPELINE: client gửi "#id|lệnh|..." và server trả "#id|phản hồi", có thể không theo thứ tự.
+     * BINARY: mọi thông điệp sau phản hồi HELLO dùng khung nhị phân.
+     * DEFLATE/GZIP: nén phản hồi vượt ngưỡng; chọn thuật toán đầu tiên client đề nghị.
+     * CANCEL: server nhận tiền tố DEADLINE|ms và lệnh CANCEL|id.
+     * HEARTBEAT, DRAIN, INVALIDATE: server được gửi HEARTBEAT / DRAIN|lý do / INVALIDATE|từ không mã bất cứ lúc nào; chỉ nhận
+     * cùng PIPELINE vì client hỏi-đáp tuần tự sẽ đọc nhầm chúng thành phản hồi của yêu cầu kế tiếp.
+     */
+    private void negotiate(long tag, String[] request) throws IOException {
+        String requested = request.length > 1 && request[1] != null ? request[1] : "";
+        StringBuilder accepted = new StringBuilder();
+        boolean switchToBinary = false;
+        boolean wantsHeartbeat = false;
+        boolean wantsDrain = false;
+        boolean wantsInvalidations = false;
+        for (String cap : requested.split(",")) {
+            cap = cap.trim();
+            if ("HEARTBEAT".equals(cap)) {
+                wantsHeartbeat = true;
+                continue;
+            }
+            if ("DRAIN".equals(cap)) {
+                wantsDrain = true;
+                continue;
+            }
+            if ("INVALIDATE".equals(cap)) {
+                wantsInvalidations = true;
+                continue;
+            }
+            if ("PIPELINE".equals(cap)) {
+                pipelining = true;
+            } else if ("CANCEL".equals(cap)) {
+                // Luôn hỗ trợ; chỉ báo cho client biết có thể gửi DEADLINE/CANCEL
+            } else if (BinaryCodec.CAPABILITY.equals(cap)) {
+                switchToBinary = true;
+            } else if (Compression.isSupported(cap) && compression == null) {
+                compression = cap;
+            } else {
+                continue;
+            }
+            if (accepted.length() > 0) accepted.append(',');
+            accepted.append(cap);
+        }
+        if (wantsHeartbeat && pipelining) {
+            heartbeats = true;
+            accepted.append(accepted.length() > 0 ? "," : "").append("HEARTBEAT");
+        }
+        if (wantsDrain && pipelining) {
+            drainNotices = true;
+            accepted.append(accepted.length() > 0 ? "," : "").append("DRAIN");
+        }
+        if (wantsInvalidations && pipelining) {
+            invalidations = true;
+            accepted.append(accepted.length() > 0 ? "," : "").append("INVALIDATE");
+        }
+        writeResponse(tag, List.of("HELLO", accepted.toString()));
+        if (switchToBinary) {
+            binary = true;
+        }
+    }
+
+    /** Chuyển yêu cầu có mã cho bulkhead của lệnh, không chờ; phản hồi được ghi kèm mã ngay khi xong */
+    private void dispatchTagged(long tag, String[] request) throws IOException {
+        try {
+            // Giới hạn số yêu cầu đang xử lý: client gửi quá nhanh thì tạm ngừng đọc
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị ngắt khi chờ xử lý yêu cầu");
+        }
+        QueryContext context = new QueryContext();
+        running.put(tag, context);
+        busy.incrementAndGet();
+        // Lỗi ghi nghĩa là kết nối đã đóng, thread đọc sẽ tự dọn dẹp
+        processor.dispatch(request, message -> writeResponse(tag, message), context)
+                .whenComplete((ignored, failure) -> {
+                    running.remove(tag, context);
+                    finished();
+                    inFlight.release();
+                });
+    }
+
+    /** CANCEL|id: hủy yêu cầu có mã id nếu còn đang chạy; mã đã trả lời xong hoặc không hợp lệ thì bỏ qua */
+    private void cancel(String[] request) {
+        if (request.length < 2) return;
+        try {
+            QueryContext context = running.get(Long.parseLong(request[1]));
+            if (context != null) {
+                context.cancel();
+            }
+        } catch (NumberFormatException ignore) {
+            // Không có yêu cầu nào mang mã này
+        }
+    }
+
+    private void writeResponse(long tag, List<String> response) throws IOException {
+        synchronized (writeLock) {
+            if (binary) {
+                BinaryCodec.writeFrame(out, tag, response, compression, COMPRESS_THRESHOLD);
+            } else {
+                byte[] line = TextCodec.encode(response);
+                if (compression != null && line.length >= COMPRESS_THRESHOLD) {
+                    line = Compression.compressLine(compression, line).getBytes(StandardCharsets.UTF_8);
+                }
+                if (tag != 0) {
+                    out.write(("#" + tag + "|").getBytes(StandardCharsets.UTF_8));
+                }
+                TextCodec.writeLine(out, line);
+            }
+            out.flush();
+        }
+    }
+
+    /** Mọi thông điệp của phản hồi (STREAM có nhiều) được ghi cùng mã với yêu cầu */
+    private CompletableFuture<Void> respond(long tag, String[] request) {
+        return processor.dispatch(request, message -> writeResponse(tag, message));
+    }
+
+    /**
+     * Yêu cầu không mã: chờ bulkhead trả lời xong rồi mới đọc yêu cầu tiếp để giữ thứ tự.
+     * JDBC chạy trên thread platform của bulkhead nên virtual thread chỉ chờ, không ghim carrier.
+     */
+    private void respondAndWait(String[] request) throws IOException {
+        try {
+            respond(0, request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bị ngắt khi chờ xử lý yêu cầu");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            writeResponse(0, List.of("ERROR", "Lỗi xử lý yêu cầu: " + e.getCause().getMessage()));
+        }
+    }
+
+    private void finished() {
+        lastActivityNanos = System.nanoTime();
+        busy.decrementAndGet();
+    }
+
+    long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    boolean isBusy() {
+        return busy.get() > 0;
+    }
+
+    SocketAddress getRemoteAddress() {
+        return clientSocket.getRemoteSocketAddress();
+    }
+
+    /** Đánh dấu đang chờ client trả lời HEARTBEAT; false nếu client không hỗ trợ hoặc đã gửi rồi */
+    boolean beginHeartbeat() {
+        return heartbeats && heartbeatPending.compareAndSet(false, true);
+    }
+
+    /** Bắt đầu dừng: từ giờ chỉ làm nốt các yêu cầu đang xử lý */
+    void beginDrain() {
+        draining = true;
+    }
+
+    /** Báo DRAIN cho client hỗ trợ; ghi lỗi nghĩa là kết nối đã hỏng nên đóng luôn */
+    void sendDrainNotice() {
+        if (!drainNotices) return;
+        try {
+            writeResponse(0, List.of("DRAIN", DRAIN_MESSAGE));
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Ghi nhận englishWord cần báo cho client; trả về true nếu người gọi phải lên lịch
+     * flushInvalidations() (chưa có lượt gửi nào đang chờ). Client không thỏa thuận INVALIDATE thì bỏ qua.
+     */
+    boolean queueInvalidation(String englishWord) {
+        if (!invalidations) return false;
+        pendingInvalidations.add(englishWord);
+        return invalidationScheduled.compareAndSet(false, true);
+    }
+
+    /** Gửi INVALIDATE|từ cho mọi từ đang chờ; ghi lỗi nghĩa là kết nối đã hỏng nên đóng luôn */
+    void flushInvalidations() {
+        // Bỏ cờ trước khi gửi: từ thêm vào sau đó hoặc được gửi ở lượt này, hoặc lên lịch lượt mới
+        invalidationScheduled.set(false);
+        try {
+            Iterator<String> it = pendingInvalidations.iterator();
+            while (it.hasNext()) {
+                String englishWord = it.next();
+                it.remove();
+                writeResponse(0, List.of("INVALIDATE", englishWord));
+            }
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    /** Ghi HEARTBEAT không mã; ghi lỗi nghĩa là kết nối đã hỏng nên đóng luôn */
+    void sendHeartbeat() {
+        try {
+            writeResponse(0, List.of("HEARTBEAT"));
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    void shutdown() {
+        try {
+            if (out != null) out.close();
+        } catch (Exception ignore) { }
+        try {
+            if (in != null) in.close();
+        } catch (Exception ignore) { }
+        try {
+            if (clientSocket != null && !clientSocket.isClosed()) clientSocket.close();
+        } catch (Exception ignore) { }
+    }
+}
@@ -0,0 +1,18 @@
+package com.dictionary.server;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Xử lý một lệnh của giao thức, đăng ký với RequestProcessor kèm nhóm chi phí.
+ * parts[0] là tên lệnh; phản hồi (một hoặc nhiều thông điệp như STREAM) đi qua sink.
+ */
+interface CommandHandler {
+    void handle(String[] parts, RequestProcessor.ResponseSink sink) throws IOException;
+
+    /** Lệnh chỉ trả đúng một phản hồi */
+    static CommandHandler of(Function<String[], List<String>> handler) {
+        return (parts, sink) -> sink.send(handler.apply(parts));
+    }
+}
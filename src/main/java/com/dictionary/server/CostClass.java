@@ -0,0 +1,44 @@
+package com.dictionary.server;
+
+/**
+ * Nhóm chi phí của một lệnh. Mỗi nhóm (trừ INLINE) chạy trên bulkhead riêng: số thread
+ * và hàng đợi có giới hạn, nên một loạt tìm kiếm chứa chậm không chiếm được thread của
+ * tra cứu chính xác, còn PING/HELLO không bao giờ phải xếp hàng.
+ *
+ * Nhóm có truy vấn CSDL còn phải qua PriorityGate theo độ ưu tiên của nhóm
+ * (null nghĩa là không chạm CSDL).
+ *
+ * Mỗi nhóm có hạn mức yêu cầu/giây cho một kết nối và cho một địa chỉ IP (0 = không giới hạn),
+ * đọc từ dictionary.server.rate.<nhãn> và dictionary.server.ipRate.<nhãn>; xem RateLimiter.
+ */
+enum CostClass {
+    /** Không truy vấn CSDL (PING, HELLO, QUIT): chạy ngay trên thread đọc yêu cầu */
+    INLINE("inline", 0, 0, null, 0, 0),
+    /** Tra cứu chính xác do người dùng chờ trực tiếp */
+    LOOKUP("lookup", Integer.getInteger("dictionary.server.lookupThreads", 8),
+            Integer.getInteger("dictionary.server.lookupQueue", 256), PriorityGate.Priority.INTERACTIVE, 50, 200),
+    /** Tự hoàn thành, phục vụ từ chỉ mục trong bộ nhớ */
+    SUGGEST("suggest", Integer.getInteger("dictionary.server.suggestThreads", 2),
+            Integer.getInteger("dictionary.server.suggestQueue", 128), null, 30, 120),
+    /** Hàng loạt: quét LIKE '%x%' và luồng cả bảng, chậm, ít thread */
+    SCAN("scan", Integer.getInteger("dictionary.server.scanThreads", 2),
+            Integer.getInteger("dictionary.server.scanQueue", 16), PriorityGate.Priority.BULK, 5, 20);
+
+    final String label;
+    final int threads;
+    final int queueCapacity;
+    final PriorityGate.Priority dbPriority;
+    // Yêu cầu/giây cho phép mỗi kết nối và mỗi IP; 0 = không giới hạn
+    final int connectionRate;
+    final int ipRate;
+
+    CostClass(String label, int threads, int queueCapacity, PriorityGate.Priority dbPriority,
+              int defaultConnectionRate, int defaultIpRate) {
+        this.label = label;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.dbPriority = dbPriority;
+        this.connectionRate = Integer.getInteger("dictionary.server.rate." + label, defaultConnectionRate);
+        this.ipRate = Integer.getInteger("dictionary.server.ipRate." + label, defaultIpRate);
+    }
+}
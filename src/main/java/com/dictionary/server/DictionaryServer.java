@@ -1,256 +1,308 @@
 package com.dictionary.server;
 
 import com.dictionary.database.DictionaryDAO;
-import com.dictionary.model.Word;
 
 import java.io.*;
 import java.net.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 public class DictionaryServer {
-    private static final int PORT = 12345;
-    private ServerSocket serverSocket;
+    // Bật chế độ NIO (Selector) bằng -Ddictionary.server.nio=true
+    private static final boolean USE_NIO = Boolean.getBoolean("dictionary.server.nio");
+    private static final int NIO_IO_THREADS = Integer.getInteger("dictionary.server.ioThreads",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    // Chạy mỗi ClientHandler trên virtual thread (JDK 21+) bằng -Ddictionary.server.virtualThreads=true
+    private static final boolean USE_VIRTUAL_THREADS = Boolean.getBoolean("dictionary.server.virtualThreads");
+    // Số phiên đồng thời tối đa (0 = không giới hạn); vượt quá sẽ trả BUSY|retry-after
+    private static final int MAX_SESSIONS = Integer.getInteger("dictionary.server.maxSessions", 0);
+    private static final long BUSY_RETRY_AFTER_MS = Long.getLong("dictionary.server.busyRetryAfterMs", 2000L);
+    // Phiên im lặng quá lâu (không yêu cầu, không trả lời HEARTBEAT) bị đóng; 0 = không bao giờ
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("dictionary.server.idleTimeoutMs", 10 * 60 * 1000L);
+    // Chu kỳ gửi HEARTBEAT cho client hỗ trợ khi phiên im lặng; 0 = tắt
+    private static final long HEARTBEAT_INTERVAL_MS = Long.getLong("dictionary.server.heartbeatIntervalMs", 30 * 1000L);
+    // Thời gian tối đa chờ các yêu cầu đang xử lý trả lời xong khi dừng server
+    private static final long DRAIN_TIMEOUT_MS = Long.getLong("dictionary.server.drainTimeoutMs", 5000L);
+    // Một socket, hoặc một socket cho mỗi acceptor khi dùng SO_REUSEPORT (xem ListenerOptions)
+    private List<ServerSocket> listeners = new ArrayList<>();
+    // Lắng nghe thêm trên Unix domain socket (null = chỉ TCP), cũng nằm trong listeners
+    private ServerSocket unixListener;
+    private NioDictionaryServer nioServer;
     private DictionaryDAO dictionaryDAO;
-    private boolean isRunning;
+    private RequestProcessor processor;
+    private ExecutorService connectionExecutor;
+    private Semaphore sessionPermits;
+    private SessionReaper reaper;
+    private InvalidationBroadcaster invalidations;
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private volatile boolean isRunning;
     private DictionaryServerGUI gui;
     private final List<ClientHandler> clientHandlers = Collections.synchronizedList(new ArrayList<>());
     
 
     public DictionaryServer(DictionaryServerGUI gui) {
         this.dictionaryDAO = new DictionaryDAO();
+        this.processor = new RequestProcessor(dictionaryDAO);
         this.isRunning = false;
         this.gui = gui;
     }
 
     public void start() throws IOException {
-        serverSocket = new ServerSocket(PORT);
+        processor.warmUp();
+        if (USE_NIO) {
+            nioServer = new NioDictionaryServer(processor, NIO_IO_THREADS);
+            nioServer.start();
+            isRunning = true;
+            System.out.println("Server (NIO, " + NIO_IO_THREADS + " thread I/O) đang chạy trên "
+                    + ListenerOptions.describe(nioServer.getListenerCount(), nioServer.hasUnixListener()));
+            return;
+        }
+
+        listeners = ListenerOptions.openServerSockets();
+        int tcpListeners = listeners.size();
+        unixListener = ListenerOptions.openUnixServerSocket();
+        if (unixListener != null) {
+            listeners.add(unixListener);
+        }
+        sessionPermits = MAX_SESSIONS > 0 ? new Semaphore(MAX_SESSIONS) : null;
+        if (USE_VIRTUAL_THREADS) {
+            // JDBC luôn chạy trên thread platform của bulkhead nên virtual thread không bị ghim carrier
+            connectionExecutor = newVirtualThreadExecutor();
+            if (connectionExecutor == null) {
+                System.err.println("JVM không hỗ trợ virtual thread, dùng thread thường cho mỗi kết nối");
+            }
+        }
+        if (IDLE_TIMEOUT_MS > 0) {
+            reaper = new SessionReaper(clientHandlers, IDLE_TIMEOUT_MS, HEARTBEAT_INTERVAL_MS);
+            reaper.start();
+        }
+        invalidations = new InvalidationBroadcaster(clientHandlers);
+        invalidations.start();
         isRunning = true;
-        System.out.println("Server đang chạy trên port " + PORT);
+        System.out.println("Server đang chạy trên " + ListenerOptions.describe(tcpListeners, unixListener != null)
+                + (connectionExecutor != null ? " (virtual thread)" : ""));
         System.out.println("Chờ kết nối từ client...");
 
-        // Xử lý kết nối client trong thread riêng
-        new Thread(() -> {
-            while (isRunning) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    System.out.println("Client đã kết nối: " + clientSocket.getInetAddress());
-                    
-                    ClientHandler clientHandler = new ClientHandler(clientSocket, dictionaryDAO, clientHandlers);
-                    Thread clientThread = new Thread(clientHandler);
-                    clientThread.start();
-                } catch (IOException e) {
-                    if (isRunning) {
-                        System.err.println("Lỗi chấp nhận kết nối: " + e.getMessage());
-                    }
-                }
-            }
-        }).start();
+        // Xử lý kết nối client trong các thread acceptor riêng
+        for (int i = 0; i < ListenerOptions.ACCEPTORS; i++) {
+            ServerSocket listener = listeners.get(i % tcpListeners);
+            new Thread(() -> acceptLoop(listener), "dictionary-acceptor-" + i).start();
+        }
+        if (unixListener != null) {
+            ServerSocket listener = unixListener;
+            new Thread(() -> acceptLoop(listener), "dictionary-unix-acceptor").start();
+        }
     }
 
-    public void stop() {
-        isRunning = false;
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-                System.out.println("Server đã dừng");
-            }
-            // Đóng tất cả kết nối client đang mở
-            synchronized (clientHandlers) {
-                for (ClientHandler handler : clientHandlers) {
+    private void acceptLoop(ServerSocket listener) {
+        while (isRunning) {
+            try {
+                Socket clientSocket = listener.accept();
+                System.out.println("Client đã kết nối: " + clientSocket.getInetAddress());
+
+                if (sessionPermits != null && !sessionPermits.tryAcquire()) {
+                    rejectBusy(clientSocket);
+                    continue;
+                }
+                ClientHandler clientHandler = new ClientHandler(clientSocket, processor, clientHandlers, rateLimiter);
+                Runnable session = () -> {
                     try {
-                        handler.shutdown();
-                    } catch (Exception ignore) { }
+                        clientHandler.run();
+                    } finally {
+                        if (sessionPermits != null) sessionPermits.release();
+                    }
+                };
+                if (connectionExecutor != null) {
+                    connectionExecutor.execute(session);
+                } else {
+                    new Thread(session).start();
+                }
+            } catch (IOException e) {
+                if (isRunning) {
+                    System.err.println("Lỗi chấp nhận kết nối: " + e.getMessage());
                 }
-                clientHandlers.clear();
             }
-        } catch (IOException e) {
-            System.err.println("Lỗi khi dừng server: " + e.getMessage());
         }
     }
 
-    public boolean isRunning() {
-        return isRunning;
+    /** Trả lời nhanh BUSY|retry-after rồi đóng khi đã đủ số phiên cho phép */
+    private void rejectBusy(Socket clientSocket) {
+        try (Socket socket = clientSocket) {
+            socket.setSoTimeout(1000);
+            OutputStream os = socket.getOutputStream();
+            os.write(("BUSY|" + BUSY_RETRY_AFTER_MS + "\n").getBytes("UTF-8"));
+            os.flush();
+            System.out.println("Từ chối kết nối (đủ " + MAX_SESSIONS + " phiên): " + socket.getInetAddress());
+        } catch (IOException ignore) { }
     }
 
-    public static void main(String[] args) {
+    /** Executors.newVirtualThreadPerTaskExecutor() qua reflection để vẫn biên dịch được với JDK cũ */
+    private static ExecutorService newVirtualThreadExecutor() {
         try {
-            DictionaryServer server = new DictionaryServer(null);
-            server.start();
-            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
-        } catch (IOException e) {
-            System.err.println("Không thể khởi động server: " + e.getMessage());
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
         }
     }
 
-    private static class ClientHandler implements Runnable {
-        private Socket clientSocket;
-        private DictionaryDAO dictionaryDAO;
-        private BufferedReader in;
-        private PrintWriter out;
-        private final List<ClientHandler> registry;
-
-        public ClientHandler(Socket socket, DictionaryDAO dao, List<ClientHandler> registry) {
-            this.clientSocket = socket;
-            this.dictionaryDAO = dao;
-            this.registry = registry;
-            this.registry.add(this);
+    /**
+     * Dừng êm: ngừng nhận kết nối, yêu cầu mới nhận DRAINING, client hỗ trợ được báo DRAIN để kết nối
+     * lại, các yêu cầu đang xử lý được làm nốt trong DRAIN_TIMEOUT_MS rồi mới đóng mọi kết nối.
+     * Có thể chặn tới DRAIN_TIMEOUT_MS nên đừng gọi trên EDT.
+     */
+    public void stop() {
+        isRunning = false;
+        if (nioServer != null) {
+            // Selector phải dừng trước khi đóng processor, nếu không yêu cầu đang chạy bị cắt ngang
+            drainNio();
+            nioServer.stop();
+            processor.close();
+            nioServer = null;
+            System.out.println("Server đã dừng");
+            return;
         }
-
-        @Override
-        public void run() {
+        if (reaper != null) {
+            reaper.stop();
+            System.out.println("Thống kê " + getSessionStats());
+        }
+        if (invalidations != null) {
+            invalidations.stop();
+            invalidations = null;
+        }
+        for (ServerSocket listener : listeners) {
             try {
-                in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), "UTF-8"));
-                out = new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream(), "UTF-8"), true);
-
-                String inputLine;
-                while ((inputLine = in.readLine()) != null) {
-                    String response = processRequest(inputLine);
-                    out.println(response);
-                    
-                    if ("QUIT".equals(inputLine)) {
-                        break;
-                    }
-                }
+                listener.close();
             } catch (IOException e) {
-                System.err.println("Lỗi xử lý client: " + e.getMessage());
-            } finally {
-                try {
-                    if (in != null) in.close();
-                    if (out != null) out.close();
-                    if (clientSocket != null) clientSocket.close();
-                    System.out.println("Client đã ngắt kết nối");
-                } catch (IOException e) {
-                    System.err.println("Lỗi đóng kết nối client: " + e.getMessage());
-                }
-                if (registry != null) {
-                    registry.remove(this);
-                }
+                System.err.println("Lỗi khi dừng server: " + e.getMessage());
             }
         }
-
-        private String processRequest(String request) {
-            String[] parts = request.split("\\|");
-            if (parts.length < 1) {
-                return "ERROR|Định dạng yêu cầu không hợp lệ";
+        if (unixListener != null) {
+            ListenerOptions.removeUnixSocket();
+            unixListener = null;
+        }
+        drain();
+        processor.close();
+        System.out.println("Thống kê " + getRateLimitStats());
+        System.out.println("Server đã dừng");
+        // Đóng tất cả kết nối client đang mở
+        synchronized (clientHandlers) {
+            for (ClientHandler handler : clientHandlers) {
+                try {
+                    handler.shutdown();
+                } catch (Exception ignore) { }
             }
+            clientHandlers.clear();
+        }
+        if (connectionExecutor != null) {
+            connectionExecutor.shutdownNow();
+            connectionExecutor = null;
+        }
+    }
 
-            String command = parts[0];
-            String data = parts.length > 1 ? parts[1] : "";
+    /** Báo các phiên ngừng nhận yêu cầu mới rồi chờ chúng làm nốt yêu cầu đang xử lý (có hạn chót) */
+    private void drain() {
+        List<ClientHandler> sessions;
+        synchronized (clientHandlers) {
+            sessions = new ArrayList<>(clientHandlers);
+        }
+        if (sessions.isEmpty()) return;
+        for (ClientHandler session : sessions) {
+            session.beginDrain();
+        }
+        // Ghi tới client không đọc có thể bị chặn: mỗi thông báo trên thread riêng, không chờ
+        ExecutorService notifier = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "dictionary-drain-notice");
+            t.setDaemon(true);
+            return t;
+        });
+        for (ClientHandler session : sessions) {
+            notifier.execute(session::sendDrainNotice);
+        }
+        notifier.shutdown();
 
+        System.out.println("Đang dừng: chờ " + sessions.size() + " phiên làm nốt yêu cầu (tối đa " + DRAIN_TIMEOUT_MS + " ms)");
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_MS * 1_000_000L;
+        int busy;
+        while ((busy = countBusy(sessions)) > 0 && System.nanoTime() < deadline) {
             try {
-                switch (command) {
-                    case "SEARCH":
-                        return handleSearch(data);
-                    case "SEARCH_CONTAINING":
-                        return handleSearchContaining(data);
-                    case "SEARCH_VIETNAMESE":
-                        return handleSearchVietnamese(data);
-                    case "SEARCH_VIETNAMESE_CONTAINING":
-                        return handleSearchVietnameseContaining(data);
-                    case "PING":
-                        return "PONG";
-                    case "QUIT":
-                        return "OK|Tạm biệt!";
-                    default:
-                        return "ERROR|Lệnh không được hỗ trợ: " + command;
-                }
-            } catch (Exception e) {
-                return "ERROR|Lỗi xử lý yêu cầu: " + e.getMessage();
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         }
-
-        private String handleSearch(String englishWord) {
-            List<Word> words = dictionaryDAO.searchWord(englishWord);
-            if (!words.isEmpty()) {
-                StringBuilder result = new StringBuilder("SUCCESS");
-                for (Word word : words) {
-                    result.append(String.format("|%s|%s|%s|%s|%s|%s|%s",
-                        word.getEnglishWord(),
-                        word.getPartOfSpeech(),
-                        word.getPhoneticSpelling(),
-                        word.getVietnameseMeaning(),
-                        word.getDetailedDefinition(),
-                        word.getExampleSentence(),
-                        word.getImagePath() != null ? word.getImagePath() : ""));
-                }
-                return result.toString();
-            } else {
-                return "NOT_FOUND|Không tìm thấy từ: " + englishWord;
-            }
+        if (busy > 0) {
+            System.err.println("Hết thời gian chờ, đóng " + busy + " phiên còn yêu cầu dở");
         }
+    }
 
-        private String handleSearchContaining(String keyword) {
-            List<Word> words = dictionaryDAO.searchWordsContaining(keyword);
-            if (!words.isEmpty()) {
-                StringBuilder result = new StringBuilder("SUCCESS");
-                for (Word word : words) {
-                    result.append(String.format("|%s|%s|%s|%s|%s|%s|%s",
-                        word.getEnglishWord(),
-                        word.getPartOfSpeech(),
-                        word.getPhoneticSpelling(),
-                        word.getVietnameseMeaning(),
-                        word.getDetailedDefinition(),
-                        word.getExampleSentence(),
-                        word.getImagePath() != null ? word.getImagePath() : ""));
-                }
-                return result.toString();
-            } else {
-                return "NOT_FOUND|Không tìm thấy từ nào chứa: " + keyword;
+    /** Dừng êm ở chế độ NIO: ngừng nhận kết nối, chờ các yêu cầu đang chạy trên bulkhead xong (có hạn chót) */
+    private void drainNio() {
+        nioServer.beginDrain();
+        if (nioServer.getInFlightCount() == 0) return;
+        System.out.println("Đang dừng: chờ " + nioServer.getInFlightCount() + " yêu cầu đang xử lý (tối đa " + DRAIN_TIMEOUT_MS + " ms)");
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_MS * 1_000_000L;
+        int busy;
+        while ((busy = nioServer.getInFlightCount()) > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         }
+        if (busy > 0) {
+            System.err.println("Hết thời gian chờ, đóng khi còn " + busy + " yêu cầu dở");
+        }
+    }
 
-        private String handleSearchVietnamese(String vietnameseWord) {
-            List<Word> words = dictionaryDAO.searchVietnameseWord(vietnameseWord);
-            if (!words.isEmpty()) {
-                StringBuilder result = new StringBuilder("SUCCESS");
-                for (Word word : words) {
-                    result.append(String.format("|%s|%s|%s|%s|%s|%s|%s",
-                        word.getEnglishWord(),
-                        word.getPartOfSpeech(),
-                        word.getPhoneticSpelling(),
-                        word.getVietnameseMeaning(),
-                        word.getDetailedDefinition(),
-                        word.getExampleSentence(),
-                        word.getImagePath() != null ? word.getImagePath() : ""));
-                }
-                return result.toString();
-            } else {
-                return "NOT_FOUND|Không tìm thấy từ Việt: " + vietnameseWord;
-            }
+    private static int countBusy(List<ClientHandler> sessions) {
+        int busy = 0;
+        for (ClientHandler session : sessions) {
+            if (session.isBusy()) busy++;
         }
+        return busy;
+    }
 
-        private String handleSearchVietnameseContaining(String keyword) {
-            List<Word> words = dictionaryDAO.searchVietnameseWordsContaining(keyword);
-            if (!words.isEmpty()) {
-                StringBuilder result = new StringBuilder("SUCCESS");
-                for (Word word : words) {
-                    result.append(String.format("|%s|%s|%s|%s|%s|%s|%s",
-                        word.getEnglishWord(),
-                        word.getPartOfSpeech(),
-                        word.getPhoneticSpelling(),
-                        word.getVietnameseMeaning(),
-                        word.getDetailedDefinition(),
-                        word.getExampleSentence(),
-                        word.getImagePath() != null ? word.getImagePath() : ""));
-                }
-                return result.toString();
-            } else {
-                return "NOT_FOUND|Không tìm thấy từ Việt nào chứa: " + keyword;
-            }
+    /** Số liệu hit/miss của bộ nhớ đệm phản hồi */
+    public String getCacheStats() {
+        return processor.getCacheStats();
+    }
+
+    /** Số phiên đang mở và số phiên đã bị đóng vì không hoạt động */
+    public String getSessionStats() {
+        if (nioServer != null) {
+            return "phiên: " + nioServer.getConnectionCount() + " đang mở (NIO)";
         }
+        return "phiên: " + clientHandlers.size() + " đang mở, "
+                + (reaper != null ? reaper.getReapedCount() : 0) + " đã đóng do không hoạt động";
+    }
 
-        private void shutdown() {
-            try {
-                if (out != null) out.close();
-            } catch (Exception ignore) { }
-            try {
-                if (in != null) in.close();
-            } catch (Exception ignore) { }
-            try {
-                if (clientSocket != null && !clientSocket.isClosed()) clientSocket.close();
-            } catch (Exception ignore) { }
+    /** Số yêu cầu được nhận / bị RATE_LIMITED theo nhóm lệnh */
+    public String getRateLimitStats() {
+        return rateLimiter.describe();
+    }
+
+    /** Độ trễ theo nhóm lệnh (tra cứu, gợi ý, quét) và trạng thái cổng CSDL */
+    public String getLatencyStats() {
+        return processor.getLatencyStats();
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public static void main(String[] args) {
+        try {
+            DictionaryServer server = new DictionaryServer(null);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        } catch (IOException e) {
+            System.err.println("Không thể khởi động server: " + e.getMessage());
         }
     }
 }
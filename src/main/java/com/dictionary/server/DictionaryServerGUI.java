@@ -614,12 +614,22 @@ public void clearActivityLog() {
 
     private void stopServer() {
         if (server != null) {
-            server.stop();
+            DictionaryServer stopping = server;
             server = null;
-            statusLabel.setText("Server đang dừng");
-            statusLabel.setForeground(UIUtils.ACCENT_COLOR);
-            startStopButton.setText("Khởi động Server");
-            logActivity("Server", "Dừng server");
+            startStopButton.setEnabled(false);
+            statusLabel.setText("Đang chờ client làm nốt yêu cầu...");
+            // stop() chờ các yêu cầu đang xử lý (tối đa drainTimeoutMs), không chặn giao diện
+            Thread stopper = new Thread(() -> {
+                stopping.stop();
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText("Server đang dừng");
+                    statusLabel.setForeground(UIUtils.ACCENT_COLOR);
+                    startStopButton.setText("Khởi động Server");
+                    startStopButton.setEnabled(true);
+                    logActivity("Server", "Dừng server");
+                });
+            }, "dictionary-server-stop");
+            stopper.start();
         }
     }
 
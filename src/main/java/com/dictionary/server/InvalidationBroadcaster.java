@@ -0,0 +1,54 @@
+package com.dictionary.server;
+
+import com.dictionary.database.DictionaryDAO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Báo INVALIDATE|từ cho các phiên đã thỏa thuận INVALIDATE mỗi khi DictionaryDAO thêm/sửa/xóa một từ,
+ * để cache tra cứu phía client không bao giờ giữ dữ liệu cũ. Chỉ thấy thay đổi đi qua DictionaryDAO
+ * trong JVM này (yêu cầu của client và GUI quản trị của server).
+ *
+ * wordChanged chạy trên thread vừa ghi CSDL nên chỉ ghi nhận từ vào từng phiên; việc ghi socket
+ * chạy trên thread riêng vì client không đọc có thể làm chặn lệnh ghi.
+ */
+class InvalidationBroadcaster implements DictionaryDAO.WordChangeListener {
+    private final List<ClientHandler> sessions;
+    private final ExecutorService senders;
+
+    InvalidationBroadcaster(List<ClientHandler> sessions) {
+        this.sessions = sessions;
+        AtomicInteger counter = new AtomicInteger();
+        this.senders = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "dictionary-invalidate-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        DictionaryDAO.addChangeListener(this);
+    }
+
+    void stop() {
+        DictionaryDAO.removeChangeListener(this);
+        senders.shutdownNow();
+    }
+
+    @Override
+    public void wordChanged(String englishWord) {
+        List<ClientHandler> snapshot;
+        synchronized (sessions) {
+            snapshot = new ArrayList<>(sessions);
+        }
+        for (ClientHandler session : snapshot) {
+            if (session.queueInvalidation(englishWord)) {
+                senders.execute(session::flushInvalidations);
+            }
+        }
+    }
+}
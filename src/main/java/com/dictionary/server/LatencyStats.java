@@ -0,0 +1,54 @@
+package com.dictionary.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thống kê độ trễ của một nhóm lệnh: số yêu cầu, thời gian chờ (hàng đợi + cổng CSDL) trung bình
+ * và phân vị của tổng thời gian. Histogram theo lũy thừa 2 của micro giây nên ghi không cần khóa;
+ * phân vị là cận trên của ô chứa nó.
+ */
+final class LatencyStats {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    void record(long waitNanos, long totalNanos) {
+        count.incrementAndGet();
+        this.waitNanos.addAndGet(waitNanos);
+        maxNanos.accumulateAndGet(totalNanos, Math::max);
+        long micros = Math.max(1, totalNanos / 1000);
+        histogram.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    String describe(String label) {
+        long n = count.get();
+        if (n == 0) {
+            return String.format("%s: 0 yêu cầu, BUSY %d", label, rejected.get());
+        }
+        return String.format("%s: %d yêu cầu, chờ TB %.2f ms, p50 %s, p95 %s, p99 %s, max %.1f ms, BUSY %d",
+                label, n, waitNanos.get() / 1e6 / n, percentile(n, 0.50), percentile(n, 0.95),
+                percentile(n, 0.99), maxNanos.get() / 1e6, rejected.get());
+    }
+
+    private String percentile(long n, double fraction) {
+        long target = (long) Math.ceil(n * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= target) {
+                long upperMicros = 1L << (i + 1);
+                return upperMicros < 1000 ? "<" + upperMicros + " µs" : "<" + upperMicros / 1000 + " ms";
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,141 @@
+package com.dictionary.server;
+
+import com.dictionary.protocol.UnixDomainSockets;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cấu hình socket lắng nghe dùng chung cho chế độ mỗi kết nối một thread và chế độ NIO:
+ * cổng, địa chỉ bind, backlog và số thread nhận kết nối (acceptor).
+ *
+ * Với SO_REUSEPORT (Linux) mỗi acceptor có socket lắng nghe riêng trên cùng cổng và kernel chia
+ * kết nối mới cho chúng, nên lúc cả phòng máy cùng mở client thì accept không dồn vào một hàng
+ * đợi/một khóa. Không có SO_REUSEPORT thì các acceptor cùng accept trên một socket.
+ *
+ * Ngoài TCP có thể lắng nghe thêm trên Unix domain socket (dictionary.server.unixSocket) cho client
+ * chạy cùng máy; kết nối qua đó nói cùng giao thức và có một acceptor riêng.
+ */
+final class ListenerOptions {
+    static final int PORT = Integer.getInteger("dictionary.server.port", 12345);
+    // Rỗng = mọi địa chỉ của máy
+    static final String BIND_ADDRESS = System.getProperty("dictionary.server.bindAddress", "");
+    // Số kết nối đã bắt tay TCP nhưng chưa được accept mà kernel giữ giùm
+    static final int BACKLOG = Integer.getInteger("dictionary.server.backlog", 128);
+    static final int ACCEPTORS = Math.max(1, Integer.getInteger("dictionary.server.acceptors", 1));
+    static final boolean REUSE_PORT = Boolean.getBoolean("dictionary.server.reusePort");
+    // Đường dẫn file Unix domain socket; rỗng = chỉ dùng TCP
+    static final String UNIX_SOCKET = System.getProperty("dictionary.server.unixSocket", "");
+
+    private ListenerOptions() {
+    }
+
+    static InetSocketAddress address() {
+        return BIND_ADDRESS.isEmpty() ? new InetSocketAddress(PORT) : new InetSocketAddress(BIND_ADDRESS, PORT);
+    }
+
+    /** Các socket lắng nghe: ACCEPTORS socket nếu dùng được SO_REUSEPORT, ngược lại một socket */
+    static List<ServerSocket> openServerSockets() throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        try {
+            int count = 1;
+            for (int i = 0; i < count; i++) {
+                ServerSocket socket = new ServerSocket();
+                sockets.add(socket);
+                if (useReusePort(socket.supportedOptions())) {
+                    socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                    count = ACCEPTORS;
+                }
+                socket.bind(address(), BACKLOG);
+            }
+        } catch (IOException e) {
+            for (ServerSocket socket : sockets) {
+                socket.close();
+            }
+            throw e;
+        }
+        return sockets;
+    }
+
+    /** Như openServerSockets() cho chế độ NIO */
+    static List<ServerSocketChannel> openChannels() throws IOException {
+        List<ServerSocketChannel> channels = new ArrayList<>();
+        try {
+            int count = 1;
+            for (int i = 0; i < count; i++) {
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channels.add(channel);
+                if (useReusePort(channel.supportedOptions())) {
+                    channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                    count = ACCEPTORS;
+                }
+                channel.bind(address(), BACKLOG);
+            }
+        } catch (IOException e) {
+            for (ServerSocketChannel channel : channels) {
+                channel.close();
+            }
+            throw e;
+        }
+        return channels;
+    }
+
+    /**
+     * ServerSocket trên Unix domain socket, hoặc null nếu không cấu hình hay không mở được
+     * (khi đó server vẫn chạy bằng TCP).
+     */
+    static ServerSocket openUnixServerSocket() {
+        if (UNIX_SOCKET.isEmpty()) return null;
+        try {
+            return UnixDomainSockets.bind(UNIX_SOCKET, BACKLOG);
+        } catch (IOException e) {
+            System.err.println("Không mở được Unix domain socket " + UNIX_SOCKET + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Như openUnixServerSocket() cho chế độ NIO */
+    static ServerSocketChannel openUnixChannel() {
+        if (UNIX_SOCKET.isEmpty()) return null;
+        try {
+            return UnixDomainSockets.openServerChannel(UNIX_SOCKET, BACKLOG);
+        } catch (IOException e) {
+            System.err.println("Không mở được Unix domain socket " + UNIX_SOCKET + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Xóa file socket sau khi đã đóng kênh lắng nghe, để lần chạy sau bind lại được ngay */
+    static void removeUnixSocket() {
+        try {
+            Files.deleteIfExists(Paths.get(UNIX_SOCKET));
+        } catch (IOException e) {
+            System.err.println("Không xóa được " + UNIX_SOCKET + ": " + e.getMessage());
+        }
+    }
+
+    /** Mô tả ngắn cho dòng log khởi động */
+    static String describe(int listeners, boolean unix) {
+        return (BIND_ADDRESS.isEmpty() ? "*" : BIND_ADDRESS) + ":" + PORT + ", backlog " + BACKLOG
+                + ", " + ACCEPTORS + " acceptor" + (listeners > 1 ? ", SO_REUSEPORT x" + listeners : "")
+                + (unix ? ", unix:" + UNIX_SOCKET : "");
+    }
+
+    private static boolean useReusePort(Set<SocketOption<?>> supported) {
+        if (!REUSE_PORT || ACCEPTORS < 2) return false;
+        if (!supported.contains(StandardSocketOptions.SO_REUSEPORT)) {
+            System.err.println("Hệ điều hành không hỗ trợ SO_REUSEPORT, các acceptor dùng chung một socket");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,398 @@
+package com.dictionary.server;
+
+import com.dictionary.protocol.RequestParser;
+import com.dictionary.protocol.TextCodec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chế độ server không chặn dựa trên Selector: (các) thread nhận kết nối và một
+ * nhóm nhỏ cố định các thread I/O, thay cho mô hình mỗi kết nối một thread.
+ * Giao thức giống hệt ClientHandler (mỗi yêu cầu/phản hồi là một dòng UTF-8).
+ * Truy vấn JDBC vẫn chặn nên được chạy trên bulkhead của RequestProcessor, không chạy trên thread I/O.
+ * Chế độ này không thương lượng HELLO nên khi dừng êm không đẩy được thông báo DRAIN: client chỉ nhận
+ * DRAINING cho yêu cầu mới gửi tới, còn yêu cầu đang chạy được làm nốt.
+ */
+class NioDictionaryServer {
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_PENDING_REQUESTS = 64;
+    // Số khung ROWS của một phản hồi dạng luồng được nằm chờ ghi; worker đợi khi client đọc chậm
+    private static final int MAX_QUEUED_CHUNKS = 4;
+
+    private final RequestProcessor processor;
+    private final IoLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // Số yêu cầu đang chạy trên bulkhead, dùng khi dừng êm
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private List<ServerSocketChannel> serverChannels = new ArrayList<>();
+    // Kênh lắng nghe Unix domain socket (null = chỉ TCP), không nằm trong serverChannels
+    private ServerSocketChannel unixChannel;
+    private volatile boolean isRunning;
+    private volatile boolean draining;
+
+    NioDictionaryServer(RequestProcessor processor, int ioThreads) {
+        this.processor = processor;
+        this.loops = new IoLoop[ioThreads];
+    }
+
+    void start() throws IOException {
+        serverChannels = ListenerOptions.openChannels();
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop(Selector.open());
+            Thread t = new Thread(loops[i], "dictionary-nio-io-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        isRunning = true;
+
+        // Các thread nhận kết nối: accept chặn rồi chia đều kết nối cho các vòng I/O
+        for (int i = 0; i < ListenerOptions.ACCEPTORS; i++) {
+            ServerSocketChannel serverChannel = serverChannels.get(i % serverChannels.size());
+            new Thread(() -> acceptLoop(serverChannel), "dictionary-nio-acceptor-" + i).start();
+        }
+        unixChannel = ListenerOptions.openUnixChannel();
+        if (unixChannel != null) {
+            ServerSocketChannel serverChannel = unixChannel;
+            new Thread(() -> acceptLoop(serverChannel), "dictionary-nio-unix-acceptor").start();
+        }
+    }
+
+    private void acceptLoop(ServerSocketChannel serverChannel) {
+        while (isRunning) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                if (channel.getLocalAddress() instanceof InetSocketAddress) {
+                    channel.socket().setTcpNoDelay(true);
+                    System.out.println("Client đã kết nối (NIO): " + channel.socket().getInetAddress());
+                } else {
+                    System.out.println("Client đã kết nối (NIO): unix:" + channel.getLocalAddress());
+                }
+                loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].register(channel);
+            } catch (IOException e) {
+                if (isRunning) {
+                    System.err.println("Lỗi chấp nhận kết nối: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Ngừng nhận kết nối mới; từ đây mọi yêu cầu mới (trừ QUIT) được trả DRAINING */
+    void beginDrain() {
+        draining = true;
+        closeListeners();
+    }
+
+    void stop() {
+        closeListeners();
+        for (IoLoop loop : loops) {
+            if (loop != null) loop.shutdown();
+        }
+    }
+
+    private synchronized void closeListeners() {
+        isRunning = false;
+        for (ServerSocketChannel serverChannel : serverChannels) {
+            try {
+                serverChannel.close();
+            } catch (IOException ignore) { }
+        }
+        if (unixChannel != null) {
+            try {
+                unixChannel.close();
+            } catch (IOException ignore) { }
+            ListenerOptions.removeUnixSocket();
+            unixChannel = null;
+        }
+    }
+
+    int getListenerCount() {
+        return serverChannels.size();
+    }
+
+    boolean hasUnixListener() {
+        return unixChannel != null;
+    }
+
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /** Một vòng lặp sự kiện: một Selector, một thread, nhiều kết nối */
+    private final class IoLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+        private volatile Thread thread;
+
+        IoLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new NioConnection(this, channel, key));
+                    connectionCount.incrementAndGet();
+                } catch (ClosedChannelException e) {
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        /** Đưa tác vụ về chạy trên thread của vòng lặp (mọi thao tác trên kết nối đều ở đây) */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            while (running) {
+                try {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        NioConnection conn = (NioConnection) key.attachment();
+                        if (conn == null || !key.isValid()) continue;
+                        try {
+                            if (key.isReadable()) conn.onReadable();
+                            if (key.isValid() && key.isWritable()) conn.onWritable();
+                        } catch (IOException e) {
+                            conn.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Lỗi vòng lặp I/O: " + e.getMessage());
+                }
+            }
+            // Đóng toàn bộ kết nối khi dừng server
+            for (SelectionKey key : selector.keys()) {
+                Object attachment = key.attachment();
+                if (attachment instanceof NioConnection) {
+                    ((NioConnection) attachment).close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignore) { }
+        }
+    }
+
+    /**
+     * Trạng thái của một kết nối: bộ đệm đọc, tách dòng, hàng đợi ghi.
+     * Các yêu cầu của cùng một kết nối được xử lý tuần tự để phản hồi đúng thứ tự.
+     */
+    private final class NioConnection {
+        private final IoLoop loop;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final RequestParser parser = new RequestParser(processor.commandTable());
+        private final Queue<String[]> pendingRequests = new ArrayDeque<>();
+        private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+        private final Set<ByteBuffer> streamedBuffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Semaphore streamCredits = new Semaphore(MAX_QUEUED_CHUNKS);
+        private boolean processing;
+        private boolean closeAfterWrite;
+        private volatile boolean closed;
+
+        NioConnection(IoLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void onReadable() throws IOException {
+            int n = channel.read(readBuffer);
+            if (n < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                boolean complete = parser.feed(readBuffer);
+                if (parser.length() > RequestParser.MAX_LINE_LENGTH) {
+                    // Bỏ phần còn lại và ngừng đọc: kết nối chỉ còn chờ ghi lỗi rồi đóng
+                    readBuffer.clear();
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    closeAfterWrite = true;
+                    enqueueResponse("ERROR|Yêu cầu quá dài");
+                    return;
+                }
+                if (complete) {
+                    pendingRequests.add(parser.fields());
+                }
+            }
+            readBuffer.clear();
+
+            // Client gửi dồn quá nhiều yêu cầu: tạm ngừng đọc cho đến khi xử lý kịp
+            if (pendingRequests.size() >= MAX_PENDING_REQUESTS) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            dispatchNext();
+        }
+
+        private void dispatchNext() {
+            if (processing || closed || closeAfterWrite) return;
+            String[] next;
+            // Đang dừng êm: yêu cầu mới không chạy nữa, trả DRAINING để client gửi lại sau khi kết nối lại
+            while ((next = pendingRequests.poll()) != null && draining && !"QUIT".equals(next[0])) {
+                enqueueResponse(TextCodec.encode(List.of("DRAINING", ClientHandler.DRAIN_MESSAGE)));
+                if (closed) return;
+            }
+            if (next == null) {
+                if (key.isValid()) key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                return;
+            }
+            String[] request = next;
+            processing = true;
+            inFlight.incrementAndGet();
+            processor.dispatch(request, this::send).whenComplete((ignored, failure) -> loop.execute(() -> {
+                processing = false;
+                inFlight.decrementAndGet();
+                if (failure != null) {
+                    close();
+                    return;
+                }
+                if (closed) return;
+                if ("QUIT".equals(request[0])) {
+                    closeAfterWrite = true;
+                    if (writeQueue.isEmpty()) close();
+                    return;
+                }
+                dispatchNext();
+            }));
+        }
+
+        /**
+         * Lệnh INLINE chạy ngay trên thread I/O nên ghi thẳng vào hàng đợi; lệnh chạy trên bulkhead
+         * (kể cả từng khung của STREAM) phải chờ chỗ trong hàng đợi ghi rồi mới chuyển về vòng I/O.
+         */
+        private void send(List<String> message) throws IOException {
+            byte[] line = TextCodec.encode(message);
+            if (loop.inLoop()) {
+                enqueueResponse(line);
+            } else {
+                enqueueChunk(line);
+            }
+        }
+
+        /** Chờ còn chỗ trong hàng đợi ghi rồi mới gửi thông điệp tiếp theo, giữ bộ nhớ cố định */
+        private void enqueueChunk(byte[] line) throws IOException {
+            try {
+                streamCredits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Bị ngắt khi chờ ghi phản hồi");
+            }
+            if (closed) {
+                throw new IOException("Kết nối đã đóng");
+            }
+            loop.execute(() -> {
+                if (closed) return;
+                ByteBuffer buffer = lineBuffer(line);
+                streamedBuffers.add(buffer);
+                enqueue(buffer);
+            });
+        }
+
+        private void enqueueResponse(String response) {
+            enqueueResponse(response.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void enqueueResponse(byte[] response) {
+            enqueue(lineBuffer(response));
+        }
+
+        private static ByteBuffer lineBuffer(byte[] line) {
+            ByteBuffer buffer = ByteBuffer.allocate(line.length + 1);
+            buffer.put(line).put((byte) '\n').flip();
+            return buffer;
+        }
+
+        private void enqueue(ByteBuffer buffer) {
+            writeQueue.add(buffer);
+            try {
+                onWritable();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void onWritable() throws IOException {
+            while (!writeQueue.isEmpty()) {
+                ByteBuffer buffer = writeQueue.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    // Socket đầy: chờ OP_WRITE rồi ghi tiếp
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (streamedBuffers.remove(writeQueue.poll())) {
+                    streamCredits.release();
+                }
+            }
+            if (key.isValid()) key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeAfterWrite) close();
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            // Đánh thức worker đang chờ ghi khung để nó dừng duyệt
+            streamCredits.release(MAX_QUEUED_CHUNKS);
+            key.cancel();
+            closeQuietly(channel);
+            connectionCount.decrementAndGet();
+            System.out.println("Client đã ngắt kết nối (NIO)");
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignore) { }
+    }
+}
@@ -0,0 +1,103 @@
+package com.dictionary.server;
+
+import java.util.ArrayDeque;
+
+/**
+ * Cổng vào CSDL có ưu tiên: tối đa `permits` yêu cầu truy vấn cùng lúc. Khi hết chỗ, yêu cầu
+ * tương tác (tra cứu chính xác) đang chờ được vào trước yêu cầu hàng loạt (quét, luồng).
+ *
+ * Hàng loạt không bao giờ giữ quá `permits - 1` chỗ để tra cứu luôn còn đường vào, và cứ sau
+ * `interactiveBurst` lượt liền cho tương tác mà hàng loạt vẫn chờ thì nhường hàng loạt một lượt
+ * (ưu tiên có trọng số, không bỏ đói).
+ */
+final class PriorityGate {
+    enum Priority { INTERACTIVE, BULK }
+
+    private static final class Waiter {
+        final Priority priority;
+        boolean granted;
+
+        Waiter(Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    private final int permits;
+    private final int bulkLimit;
+    private final int interactiveBurst;
+    private final ArrayDeque<Waiter> interactive = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> bulk = new ArrayDeque<>();
+    private int inUse;
+    private int bulkInUse;
+    // Số lượt liền đã cho tương tác trong khi hàng loạt đang chờ
+    private int passedOver;
+
+    PriorityGate(int permits, int interactiveBurst) {
+        this.permits = Math.max(1, permits);
+        this.bulkLimit = Math.max(1, this.permits - 1);
+        this.interactiveBurst = Math.max(1, interactiveBurst);
+    }
+
+    synchronized void acquire(Priority priority) throws InterruptedException {
+        Waiter waiter = new Waiter(priority);
+        queue(priority).add(waiter);
+        grant();
+        try {
+            while (!waiter.granted) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                release(priority);
+            } else {
+                queue(priority).remove(waiter);
+            }
+            throw e;
+        }
+    }
+
+    synchronized void release(Priority priority) {
+        inUse--;
+        if (priority == Priority.BULK) bulkInUse--;
+        grant();
+    }
+
+    /** Số yêu cầu đang chờ theo nhóm, cho thống kê */
+    synchronized String describe() {
+        return "CSDL: " + inUse + "/" + permits + " đang dùng (hàng loạt " + bulkInUse + "), chờ: tương tác "
+                + interactive.size() + ", hàng loạt " + bulk.size();
+    }
+
+    private ArrayDeque<Waiter> queue(Priority priority) {
+        return priority == Priority.INTERACTIVE ? interactive : bulk;
+    }
+
+    private void grant() {
+        boolean granted = false;
+        Waiter next;
+        while (inUse < permits && (next = next()) != null) {
+            queue(next.priority).poll();
+            next.granted = true;
+            inUse++;
+            if (next.priority == Priority.BULK) bulkInUse++;
+            granted = true;
+        }
+        if (granted) {
+            notifyAll();
+        }
+    }
+
+    private Waiter next() {
+        Waiter first = interactive.peek();
+        Waiter second = bulkInUse < bulkLimit ? bulk.peek() : null;
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        if (passedOver >= interactiveBurst) {
+            passedOver = 0;
+            return second;
+        }
+        passedOver++;
+        return first;
+    }
+}
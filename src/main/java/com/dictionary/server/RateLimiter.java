@@ -0,0 +1,157 @@
+package com.dictionary.server;
+
+import java.net.InetAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn tốc độ bằng token bucket theo nhóm chi phí, cho từng kết nối và cho từng địa chỉ IP
+ * (mọi kết nối từ một IP dùng chung bucket). Một script gọi SEARCH_CONTAINING liên tục chỉ tiêu
+ * hết hạn mức của chính nó, không chiếm hết bulkhead và kết nối CSDL của người khác.
+ *
+ * Bucket đầy cho phép dồn tối đa BURST_SECONDS giây hạn mức; yêu cầu vượt nhận RATE_LIMITED|retry-after
+ * mà không xếp hàng. Bucket theo IP được giữ cả khi IP không còn kết nối cho tới khi nạp đầy lại
+ * (kết nối lại không xóa được hạn mức đã dùng), rồi mới bị dọn.
+ */
+class RateLimiter {
+    private static final int BURST_SECONDS = Integer.getInteger("dictionary.server.rateBurstSeconds", 2);
+    // Cứ sau ngần này lần mở kết nối thì dọn các IP không còn kết nối và đã nạp đầy hạn mức
+    private static final int PURGE_EVERY = 256;
+
+    private final Map<InetAddress, Address> addresses = new ConcurrentHashMap<>();
+    private final Map<CostClass, AtomicLong> allowed = new EnumMap<>(CostClass.class);
+    private final Map<CostClass, AtomicLong> limited = new EnumMap<>(CostClass.class);
+    private final AtomicLong opened = new AtomicLong();
+
+    RateLimiter() {
+        for (CostClass cost : CostClass.values()) {
+            allowed.put(cost, new AtomicLong());
+            limited.put(cost, new AtomicLong());
+        }
+    }
+
+    /** Hạn mức của một kết nối; gọi close() khi kết nối đóng */
+    Session open(InetAddress address) {
+        if (opened.incrementAndGet() % PURGE_EVERY == 0) {
+            purgeIdle();
+        }
+        Address shared = addresses.compute(address, (key, existing) -> {
+            Address a = existing != null ? existing : new Address();
+            a.connections++;
+            return a;
+        });
+        return new Session(address, shared);
+    }
+
+    private void purgeIdle() {
+        long now = System.nanoTime();
+        for (InetAddress address : addresses.keySet()) {
+            addresses.computeIfPresent(address, (key, a) -> a.connections == 0 && a.isFull(now) ? null : a);
+        }
+    }
+
+    /** Mỗi nhóm một dòng: số yêu cầu được nhận và số bị từ chối, cùng số IP đang theo dõi */
+    String describe() {
+        StringBuilder sb = new StringBuilder("giới hạn tốc độ (" + addresses.size() + " IP):");
+        for (CostClass cost : CostClass.values()) {
+            if (cost.connectionRate <= 0 && cost.ipRate <= 0) continue;
+            sb.append(String.format(" %s %d/s/kết nối, %d/s/IP: nhận %d, từ chối %d;", cost.label,
+                    cost.connectionRate, cost.ipRate, allowed.get(cost).get(), limited.get(cost).get()));
+        }
+        return sb.toString();
+    }
+
+    private static Map<CostClass, TokenBucket> buckets(boolean perAddress) {
+        Map<CostClass, TokenBucket> buckets = new EnumMap<>(CostClass.class);
+        for (CostClass cost : CostClass.values()) {
+            int rate = perAddress ? cost.ipRate : cost.connectionRate;
+            if (rate > 0) {
+                buckets.put(cost, new TokenBucket(rate, Math.max(1, rate * BURST_SECONDS)));
+            }
+        }
+        return buckets;
+    }
+
+    private static final class Address {
+        final Map<CostClass, TokenBucket> buckets = buckets(true);
+        // Chỉ sửa bên trong addresses.compute nên không cần đồng bộ thêm
+        int connections;
+
+        boolean isFull(long now) {
+            for (TokenBucket bucket : buckets.values()) {
+                if (!bucket.isFull(now)) return false;
+            }
+            return true;
+        }
+    }
+
+    final class Session {
+        private final InetAddress address;
+        private final Address shared;
+        private final Map<CostClass, TokenBucket> own = buckets(false);
+        private boolean closed;
+
+        private Session(InetAddress address, Address shared) {
+            this.address = address;
+            this.shared = shared;
+        }
+
+        /** 0 nếu được chạy một yêu cầu nhóm cost, ngược lại số ms nên chờ trước khi thử lại */
+        long tryAcquire(CostClass cost) {
+            long now = System.nanoTime();
+            TokenBucket mine = own.get(cost);
+            long wait = mine != null ? mine.tryAcquire(now) : 0;
+            if (wait == 0) {
+                TokenBucket common = shared.buckets.get(cost);
+                wait = common != null ? common.tryAcquire(now) : 0;
+                if (wait > 0 && mine != null) {
+                    // IP hết hạn mức: trả lại token của kết nối vì yêu cầu không được chạy
+                    mine.refund();
+                }
+            }
+            (wait == 0 ? allowed : limited).get(cost).incrementAndGet();
+            return wait;
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            long now = System.nanoTime();
+            addresses.computeIfPresent(address, (key, a) -> --a.connections > 0 || !a.isFull(now) ? a : null);
+        }
+    }
+
+    /** Bucket nạp rate token mỗi giây, chứa tối đa capacity token */
+    private static final class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int rate, int capacity) {
+            this.tokensPerNano = rate / 1e9;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1e6));
+        }
+
+        synchronized boolean isFull(long now) {
+            return tokens + (now - lastRefill) * tokensPerNano >= capacity;
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
@@ -0,0 +1,658 @@
+package com.dictionary.server;
+
+import com.dictionary.database.DictionaryDAO;
+import com.dictionary.database.QueryContext;
+import com.dictionary.model.Suggestion;
+import com.dictionary.model.Word;
+import com.dictionary.protocol.CommandTable;
+import com.dictionary.protocol.WordFields;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.Consumer;
+
+/**
+ * Xử lý yêu cầu (lệnh + tham số) và trả về phản hồi dạng danh sách trường.
+ * Trường đầu tiên là trạng thái (SUCCESS, NOT_FOUND, ERROR, ...); cách mã hóa
+ * (dòng văn bản nối bằng '|' hay khung nhị phân) do tầng kết nối quyết định.
+ * Dùng chung cho ClientHandler (mỗi kết nối một thread) và NioDictionaryServer.
+ *
+ * Lệnh STREAM|<lệnh>|<tham số> trả kết quả lớn thành nhiều thông điệp:
+ * ROWS|7 trường mỗi từ|... (mỗi khung tối đa STREAM_CHUNK_ROWS từ) rồi END|<tổng số từ>,
+ * hoặc ERROR|... nếu truy vấn lỗi giữa chừng.
+ *
+ * Tìm kiếm chứa có thể phân trang: SEARCH_CONTAINING|từ khóa|limit|con trỏ
+ * -> PAGE|con trỏ trang sau (rỗng nếu hết)|7 trường mỗi từ|...
+ *
+ * Tự hoàn thành: SUGGEST|EN hoặc VI|tiền tố|limit -> SUGGESTIONS|chuỗi|nghĩa ngắn|...
+ * (phục vụ từ SuggestionIndex trong bộ nhớ, không truy vấn CSDL).
+ *
+ * Tra nhiều từ một lượt: MSEARCH|EN hoặc VI|từ 1|từ 2|...
+ * -> RESULTS|từ 1|số nghĩa|7 trường mỗi nghĩa|...|từ 2|số nghĩa|...
+ *
+ * Mỗi lệnh là một CommandHandler đăng ký kèm CostClass; dispatch() chạy lệnh trên bulkhead
+ * của nhóm đó. Hàng đợi của nhóm đầy thì trả ngay BUSY|retry-after thay vì xếp hàng thêm.
+ * Lệnh có truy vấn CSDL còn phải qua PriorityGate: tra cứu chính xác được vào trước quét hàng loạt.
+ * Tra cứu trúng cache được trả lời ngay trên thread gọi, không xếp hàng.
+ *
+ * Hạn chót do client đặt: DEADLINE|ms|lệnh|tham số... Quá hạn thì câu lệnh JDBC đang chạy bị hủy
+ * và client nhận CANCELLED|Hết hạn thay cho kết quả; yêu cầu bị hủy (CANCEL của ClientHandler)
+ * nhận CANCELLED|Đã hủy. Yêu cầu đã hết hạn khi tới lượt thì không chạy nữa.
+ */
+class RequestProcessor {
+    static final String STREAM = "STREAM";
+    static final String DEADLINE = "DEADLINE";
+    // Số từ tối đa trong một khung ROWS: bộ nhớ mỗi phản hồi không phụ thuộc kích thước từ điển
+    private static final int STREAM_CHUNK_ROWS = Integer.getInteger("dictionary.server.streamChunkRows", 200);
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_BATCH_KEYS = 1000;
+    private static final List<String> SUCCESS_HEAD = List.of("SUCCESS");
+    // Bộ nhớ đệm phản hồi tra cứu (0 mục = tắt)
+    private static final int CACHE_ENTRIES = Integer.getInteger("dictionary.server.cacheEntries", 10000);
+    private static final long CACHE_MAX_BYTES = Long.getLong("dictionary.server.cacheMaxBytes", 32L * 1024 * 1024);
+    private static final long BUSY_RETRY_AFTER_MS = Long.getLong("dictionary.server.busyRetryAfterMs", 2000L);
+    // Số yêu cầu được truy vấn CSDL cùng lúc, và số lượt liền cho tra cứu trước khi nhường quét một lượt
+    private static final int DB_PERMITS = Integer.getInteger("dictionary.server.dbPermits", 4);
+    private static final int INTERACTIVE_BURST = Integer.getInteger("dictionary.server.interactiveBurst", 8);
+
+    /** Nơi nhận từng thông điệp của phản hồi dạng luồng (ghi ra socket theo định dạng của kết nối) */
+    interface ResponseSink {
+        void send(List<String> message) throws IOException;
+    }
+
+    private static final class Command {
+        final CostClass cost;
+        final CommandHandler handler;
+        // Phản hồi (khi chỉ có một tham số) nằm trong ResponseCache
+        final boolean cacheable;
+
+        Command(CostClass cost, CommandHandler handler, boolean cacheable) {
+            this.cost = cost;
+            this.handler = handler;
+            this.cacheable = cacheable;
+        }
+    }
+
+    private final DictionaryDAO dictionaryDAO;
+    private final SuggestionIndex suggestionIndex;
+    private final ResponseCache cache;
+    private final DictionaryDAO.WordChangeListener cacheInvalidator;
+    private final Map<String, Command> commands = new ConcurrentHashMap<>();
+    private final Map<CostClass, ThreadPoolExecutor> bulkheads = new EnumMap<>(CostClass.class);
+    private final Map<CostClass, LatencyStats> latency = new EnumMap<>(CostClass.class);
+    private final PriorityGate databaseGate = new PriorityGate(DB_PERMITS, INTERACTIVE_BURST);
+    private volatile CommandTable commandTable = new CommandTable(List.of());
+    // Hủy truy vấn khi tới hạn chót; chỉ gọi cancel() nên một thread là đủ
+    private final ScheduledExecutorService deadlineTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "dictionary-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    RequestProcessor(DictionaryDAO dictionaryDAO) {
+        this.dictionaryDAO = dictionaryDAO;
+        this.suggestionIndex = new SuggestionIndex(dictionaryDAO);
+        for (CostClass cost : CostClass.values()) {
+            latency.put(cost, new LatencyStats());
+            if (cost.threads > 0) {
+                bulkheads.put(cost, newBulkhead(cost));
+            }
+        }
+        registerCommands();
+        if (CACHE_ENTRIES > 0) {
+            this.cache = new ResponseCache(CACHE_ENTRIES, CACHE_MAX_BYTES);
+            // Hủy ngay trên thread vừa ghi để lần đọc kế tiếp không thấy dữ liệu cũ
+            this.cacheInvalidator = englishWord -> {
+                List<String> meanings = new ArrayList<>();
+                for (Word word : dictionaryDAO.searchWord(englishWord)) {
+                    meanings.add(word.getVietnameseMeaning());
+                }
+                cache.invalidate(englishWord, meanings);
+            };
+            DictionaryDAO.addChangeListener(cacheInvalidator);
+        } else {
+            this.cache = null;
+            this.cacheInvalidator = null;
+        }
+    }
+
+    /** Nạp trước chỉ mục gợi ý trên thread nền để lần gõ phím đầu tiên không phải chờ */
+    void warmUp() {
+        Thread loader = new Thread(suggestionIndex::ensureLoaded, "dictionary-suggest-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void close() {
+        for (ThreadPoolExecutor bulkhead : bulkheads.values()) {
+            bulkhead.shutdownNow();
+        }
+        deadlineTimer.shutdownNow();
+        suggestionIndex.close();
+        if (cacheInvalidator != null) {
+            DictionaryDAO.removeChangeListener(cacheInvalidator);
+            System.out.println("Thống kê " + cache.stats());
+        }
+        System.out.println("Thống kê độ trễ:\n" + getLatencyStats());
+    }
+
+    String getCacheStats() {
+        return cache != null ? cache.stats() : "cache: tắt";
+    }
+
+    /** Mỗi nhóm lệnh một dòng (số yêu cầu, thời gian chờ, phân vị độ trễ, số lần BUSY) và trạng thái cổng CSDL */
+    String getLatencyStats() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<CostClass, LatencyStats> entry : latency.entrySet()) {
+            sb.append(entry.getValue().describe(entry.getKey().label)).append('\n');
+        }
+        return sb.append(databaseGate.describe()).toString();
+    }
+
+    private void registerCommands() {
+        register("SEARCH", CostClass.LOOKUP, true, CommandHandler.of(parts ->
+                cached("SEARCH", argument(parts), () -> handleSearch(argument(parts)))));
+        register("SEARCH_VIETNAMESE", CostClass.LOOKUP, true, CommandHandler.of(parts ->
+                cached("SEARCH_VIETNAMESE", argument(parts), () -> handleSearchVietnamese(argument(parts)))));
+        register("SEARCH_CONTAINING", CostClass.SCAN, true, CommandHandler.of(parts -> parts.length > 2
+                ? handlePage(parts, false)
+                : cached("SEARCH_CONTAINING", argument(parts), () -> handleSearchContaining(argument(parts)))));
+        register("SEARCH_VIETNAMESE_CONTAINING", CostClass.SCAN, true, CommandHandler.of(parts -> parts.length > 2
+                ? handlePage(parts, true)
+                : cached("SEARCH_VIETNAMESE_CONTAINING", argument(parts),
+                        () -> handleSearchVietnameseContaining(argument(parts)))));
+        register("SUGGEST", CostClass.SUGGEST, CommandHandler.of(this::handleSuggest));
+        register("MSEARCH", CostClass.LOOKUP, CommandHandler.of(this::handleMultiSearch));
+        register(STREAM, CostClass.SCAN, this::stream);
+        register("PING", CostClass.INLINE, CommandHandler.of(parts -> List.of("PONG")));
+        // Phiên không hỗ trợ tính năng mở rộng nào (ClientHandler tự trả lời HELLO)
+        register("HELLO", CostClass.INLINE, CommandHandler.of(parts -> List.of("HELLO", "")));
+        register("QUIT", CostClass.INLINE, CommandHandler.of(parts -> List.of("OK", "Tạm biệt!")));
+    }
+
+    /** Thêm hoặc thay một lệnh; tên lệnh phải là ASCII */
+    void register(String name, CostClass cost, CommandHandler handler) {
+        register(name, cost, false, handler);
+    }
+
+    private synchronized void register(String name, CostClass cost, boolean cacheable, CommandHandler handler) {
+        commands.put(name, new Command(cost, handler, cacheable));
+        commandTable = new CommandTable(commands.keySet());
+    }
+
+    /** Nhóm chi phí của yêu cầu (bỏ qua tiền tố DEADLINE), null nếu lệnh không tồn tại hoặc trống */
+    CostClass costOf(String[] parts) {
+        int index = parts.length > 2 && DEADLINE.equals(parts[0]) ? 2 : 0;
+        if (!hasCommand(parts, index)) {
+            return null;
+        }
+        Command command = commands.get(parts[index]);
+        return command != null ? command.cost : null;
+    }
+
+    /** Khung nhị phân cho phép trường null nên tên lệnh có thể null: không được đưa vào tra map */
+    private static boolean hasCommand(String[] parts, int index) {
+        return parts.length > index && parts[index] != null && !parts[index].isEmpty();
+    }
+
+    /** Bảng tên lệnh đã đăng ký, dùng cho RequestParser của mỗi kết nối */
+    CommandTable commandTable() {
+        return commandTable;
+    }
+
+    /**
+     * Chạy yêu cầu trên bulkhead theo nhóm chi phí của lệnh (lệnh INLINE chạy ngay trên thread gọi).
+     * Future hoàn thành sau khi thông điệp cuối cùng đã qua sink; lỗi ghi socket làm future lỗi
+     * với IOException. Bulkhead đầy thì gửi BUSY|retry-after qua sink và hoàn thành luôn.
+     */
+    CompletableFuture<Void> dispatch(String[] parts, ResponseSink sink) {
+        return dispatch(parts, sink, null);
+    }
+
+    /**
+     * Như trên, kèm ngữ cảnh để kết nối hủy được yêu cầu đang chạy (null nếu không cần).
+     * Tiền tố DEADLINE|ms đặt hạn chót cho ngữ cảnh (tạo mới nếu chưa có).
+     */
+    CompletableFuture<Void> dispatch(String[] parts, ResponseSink sink, QueryContext context) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (parts.length > 0 && DEADLINE.equals(parts[0])) {
+            long timeoutMs = parts.length > 2 ? parseTimeout(parts[1]) : -1;
+            if (timeoutMs < 0) {
+                try {
+                    sink.send(List.of("ERROR", "Hạn chót không hợp lệ"));
+                    done.complete(null);
+                } catch (IOException e) {
+                    done.completeExceptionally(e);
+                }
+                return done;
+            }
+            context = (context != null ? context : new QueryContext()).expireAfter(timeoutMs);
+            parts = Arrays.copyOfRange(parts, 2, parts.length);
+        }
+        if (!hasCommand(parts, 0)) {
+            try {
+                sink.send(List.of("ERROR", "Định dạng yêu cầu không hợp lệ"));
+                done.complete(null);
+            } catch (IOException e) {
+                done.completeExceptionally(e);
+            }
+            return done;
+        }
+        String[] request = parts;
+        QueryContext queryContext = context;
+        Command command = commands.get(parts[0]);
+        if (command != null && command.cacheable && cache != null && parts.length <= 2) {
+            List<String> hit = cache.get(parts[0], ResponseCache.normalize(argument(parts)));
+            if (hit != null) {
+                try {
+                    sink.send(hit);
+                    done.complete(null);
+                } catch (IOException e) {
+                    done.completeExceptionally(e);
+                }
+                latency.get(command.cost).record(0, System.nanoTime() - start);
+                return done;
+            }
+        }
+        Runnable task = () -> {
+            try {
+                if (queryContext == null) {
+                    execute(command, request, sink, start);
+                } else {
+                    executeWithin(queryContext, command, request, sink, start);
+                }
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        };
+        ThreadPoolExecutor bulkhead = command != null ? bulkheads.get(command.cost) : null;
+        if (bulkhead == null) {
+            task.run();
+            return done;
+        }
+        try {
+            bulkhead.execute(task);
+        } catch (RejectedExecutionException e) {
+            latency.get(command.cost).rejected();
+            try {
+                sink.send(bulkhead.isShutdown() ? List.of("ERROR", "Server đang dừng")
+                        : List.of("BUSY", String.valueOf(BUSY_RETRY_AFTER_MS)));
+                done.complete(null);
+            } catch (IOException io) {
+                done.completeExceptionally(io);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Chạy lệnh với ngữ cảnh gắn vào thread (DAO đăng ký câu lệnh JDBC để hủy được). Hết hạn thì
+     * deadlineTimer hủy truy vấn; mọi thông điệp định gửi sau khi hủy được thay bằng một CANCELLED.
+     */
+    private void executeWithin(QueryContext context, Command command, String[] parts, ResponseSink sink,
+                               long start) throws IOException {
+        if (context.isDone()) {
+            sendCancelled(context, sink);
+            return;
+        }
+        ScheduledFuture<?> timer = null;
+        if (context.hasDeadline()) {
+            try {
+                timer = deadlineTimer.schedule(context::cancel, context.remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Server đang dừng: chạy không có bộ hẹn giờ
+            }
+        }
+        context.bind();
+        try {
+            execute(command, parts, message -> {
+                if (context.isDone()) {
+                    // Ném ra để dừng cả vòng duyệt của STREAM; execute() trả CANCELLED
+                    throw new CancellationException();
+                }
+                sink.send(message);
+            }, start);
+        } catch (CancellationException e) {
+            sendCancelled(context, sink);
+        } finally {
+            QueryContext.unbind();
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+    }
+
+    private static void sendCancelled(QueryContext context, ResponseSink sink) throws IOException {
+        sink.send(List.of("CANCELLED", context.isExpired() ? "Hết hạn" : "Đã hủy"));
+    }
+
+    private static long parseTimeout(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void execute(Command command, String[] parts, ResponseSink sink, long start) throws IOException {
+        if (command == null) {
+            sink.send(List.of("ERROR", "Lệnh không được hỗ trợ: " + parts[0]));
+            return;
+        }
+        PriorityGate.Priority priority = command.cost.dbPriority;
+        if (priority != null) {
+            try {
+                databaseGate.acquire(priority);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sink.send(List.of("ERROR", "Server đang dừng"));
+                return;
+            }
+        }
+        long started = System.nanoTime();
+        try {
+            QueryContext context = QueryContext.current();
+            if (context != null && context.isDone()) {
+                // Hết hạn trong lúc chờ cổng CSDL
+                throw new CancellationException();
+            }
+            command.handler.handle(parts, sink);
+        } catch (IOException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            sink.send(List.of("ERROR", "Lỗi xử lý yêu cầu: " + e.getMessage()));
+        } finally {
+            if (priority != null) {
+                databaseGate.release(priority);
+            }
+            latency.get(command.cost).record(started - start, System.nanoTime() - start);
+        }
+    }
+
+    private static ThreadPoolExecutor newBulkhead(CostClass cost) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(cost.threads, cost.threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cost.queueCapacity), r -> {
+                    Thread t = new Thread(r, "dictionary-" + cost.label + "-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    private static String argument(String[] parts) {
+        return field(parts, 1);
+    }
+
+    /** Trường thứ index, "" nếu thiếu hoặc null (khung nhị phân) */
+    private static String field(String[] parts, int index) {
+        return parts.length > index && parts[index] != null ? parts[index] : "";
+    }
+
+    /** Truy vấn rồi lưu phản hồi vào cache (chỉ lưu SUCCESS) */
+    private List<String> cached(String command, String argument, Supplier<List<String>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        // dispatch() đã thử cache trước khi xếp hàng
+        long generation = cache.generation();
+        List<String> response = loader.get();
+        QueryContext context = QueryContext.current();
+        // Truy vấn bị hủy giữa chừng có thể chỉ trả về một phần kết quả: không lưu
+        if (context == null || !context.isDone()) {
+            cache.put(command, ResponseCache.normalize(argument), response, generation);
+        }
+        return response;
+    }
+
+    /** Xử lý STREAM|lệnh|tham số, ghi lần lượt các khung ROWS rồi END qua sink */
+    private void stream(String[] parts, ResponseSink sink) throws IOException {
+        String command = field(parts, 1);
+        String data = field(parts, 2);
+        ChunkWriter chunks = new ChunkWriter(sink);
+        int count;
+        try {
+            switch (command) {
+                case "GET_ALL":
+                    count = dictionaryDAO.forEachWord(chunks);
+                    break;
+                case "SEARCH_CONTAINING":
+                    count = dictionaryDAO.forEachWordContaining(data, chunks);
+                    break;
+                case "SEARCH_VIETNAMESE_CONTAINING":
+                    count = dictionaryDAO.forEachVietnameseWordContaining(data, chunks);
+                    break;
+                default:
+                    sink.send(List.of("ERROR", "Lệnh không hỗ trợ dạng luồng: " + command));
+                    return;
+            }
+            chunks.flush();
+        } catch (UncheckedIOException e) {
+            // Lỗi ghi socket bên trong vòng duyệt DAO
+            throw e.getCause();
+        } catch (CancellationException e) {
+            // Yêu cầu bị hủy/hết hạn giữa chừng
+            throw e;
+        } catch (RuntimeException e) {
+            sink.send(List.of("ERROR", "Lỗi xử lý yêu cầu: " + e.getMessage()));
+            return;
+        }
+        if (count < 0) {
+            sink.send(List.of("ERROR", "Lỗi truy vấn cơ sở dữ liệu"));
+        } else {
+            sink.send(List.of("END", String.valueOf(count)));
+        }
+    }
+
+    /** Gom từ thành khung ROWS có kích thước giới hạn và gửi ngay khi đầy */
+    private static final class ChunkWriter implements Consumer<Word> {
+        private static final List<String> HEAD = List.of("ROWS");
+
+        private final ResponseSink sink;
+        private List<Word> chunk = new ArrayList<>(STREAM_CHUNK_ROWS);
+
+        ChunkWriter(ResponseSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(Word word) {
+            chunk.add(word);
+            if (chunk.size() >= STREAM_CHUNK_ROWS) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) return;
+            try {
+                sink.send(new WordFields(HEAD, chunk));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            chunk = new ArrayList<>(STREAM_CHUNK_ROWS);
+        }
+    }
+
+    private List<String> handleSearch(String englishWord) {
+        List<Word> words = dictionaryDAO.searchWord(englishWord);
+        if (!words.isEmpty()) {
+            return success(words);
+        } else {
+            return List.of("NOT_FOUND", "Không tìm thấy từ: " + englishWord);
+        }
+    }
+
+    private List<String> handleSearchContaining(String keyword) {
+        List<Word> words = dictionaryDAO.searchWordsContaining(keyword);
+        if (!words.isEmpty()) {
+            return success(words);
+        } else {
+            return List.of("NOT_FOUND", "Không tìm thấy từ nào chứa: " + keyword);
+        }
+    }
+
+    private List<String> handleSearchVietnamese(String vietnameseWord) {
+        List<Word> words = dictionaryDAO.searchVietnameseWord(vietnameseWord);
+        if (!words.isEmpty()) {
+            return success(words);
+        } else {
+            return List.of("NOT_FOUND", "Không tìm thấy từ Việt: " + vietnameseWord);
+        }
+    }
+
+    private List<String> handleSearchVietnameseContaining(String keyword) {
+        List<Word> words = dictionaryDAO.searchVietnameseWordsContaining(keyword);
+        if (!words.isEmpty()) {
+            return success(words);
+        } else {
+            return List.of("NOT_FOUND", "Không tìm thấy từ Việt nào chứa: " + keyword);
+        }
+    }
+
+    /** Tiếng Anh dùng một truy vấn IN (...); tiếng Việt (LIKE) tra lần lượt ngay trên server */
+    private List<String> handleMultiSearch(String[] parts) {
+        if (parts.length < 2) {
+            return List.of("ERROR", "Thiếu hướng tra cứu");
+        }
+        boolean vietnamese = "VI".equals(parts[1]);
+        Set<String> keys = new LinkedHashSet<>(Arrays.asList(parts).subList(2, parts.length));
+        keys.remove(null);
+        if (keys.size() > MAX_BATCH_KEYS) {
+            return List.of("ERROR", "Quá nhiều từ trong một yêu cầu (tối đa " + MAX_BATCH_KEYS + ")");
+        }
+
+        Map<String, List<Word>> found;
+        if (vietnamese) {
+            found = new LinkedHashMap<>();
+            for (String key : keys) {
+                found.put(key, dictionaryDAO.searchVietnameseWord(key));
+            }
+        } else {
+            found = dictionaryDAO.searchWords(keys);
+        }
+
+        List<String> result = new ArrayList<>();
+        result.add("RESULTS");
+        for (String key : keys) {
+            List<Word> words = found.getOrDefault(vietnamese ? key : key.toLowerCase(), List.of());
+            result.add(key);
+            result.add(String.valueOf(words.size()));
+            for (Word word : words) {
+                addWord(result, word);
+            }
+        }
+        return result;
+    }
+
+    private List<String> handleSuggest(String[] parts) {
+        if (parts.length < 3) {
+            return List.of("ERROR", "Thiếu tham số gợi ý");
+        }
+        int limit = 10;
+        if (parts.length > 3) {
+            try {
+                limit = Math.max(1, Math.min(Integer.parseInt(parts[3]), MAX_SUGGESTIONS));
+            } catch (NumberFormatException e) {
+                return List.of("ERROR", "Giới hạn không hợp lệ: " + parts[3]);
+            }
+        }
+        List<Suggestion> suggestions = suggestionIndex.suggest("VI".equals(parts[1]), field(parts, 2), limit);
+        List<String> result = new ArrayList<>(1 + suggestions.size() * 2);
+        result.add("SUGGESTIONS");
+        for (Suggestion s : suggestions) {
+            result.add(s.getText());
+            result.add(s.getMeaning());
+        }
+        return result;
+    }
+
+    /** Một trang tìm kiếm chứa theo thứ tự (english_word, part_of_speech), con trỏ là khóa của từ cuối trang */
+    private List<String> handlePage(String[] parts, boolean vietnamese) {
+        String keyword = field(parts, 1);
+        int limit;
+        try {
+            limit = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            return List.of("ERROR", "Giới hạn không hợp lệ: " + parts[2]);
+        }
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        String afterWord = null;
+        String afterPartOfSpeech = null;
+        if (!field(parts, 3).isEmpty()) {
+            String[] key = decodeCursor(parts[3]);
+            if (key == null) {
+                return List.of("ERROR", "Con trỏ trang không hợp lệ");
+            }
+            afterWord = key[0];
+            afterPartOfSpeech = key[1];
+        }
+
+        // Lấy dư một từ để biết còn trang sau hay không
+        List<Word> words = vietnamese
+                ? dictionaryDAO.searchVietnameseWordsContaining(keyword, limit + 1, afterWord, afterPartOfSpeech)
+                : dictionaryDAO.searchWordsContaining(keyword, limit + 1, afterWord, afterPartOfSpeech);
+        String nextCursor = "";
+        if (words.size() > limit) {
+            words = words.subList(0, limit);
+            nextCursor = encodeCursor(words.get(limit - 1));
+        }
+
+        return new WordFields(List.of("PAGE", nextCursor), words);
+    }
+
+    static String encodeCursor(Word last) {
+        String key = last.getEnglishWord() + "\n" + last.getPartOfSpeech();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = key.indexOf('\n');
+            return sep < 0 ? null : new String[]{key.substring(0, sep), key.substring(sep + 1)};
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** SUCCESS rồi 7 trường cho mỗi từ; các từ được ghi từ dạng mã hóa sẵn */
+    private static List<String> success(List<Word> words) {
+        return new WordFields(SUCCESS_HEAD, words);
+    }
+
+    private static void addWord(List<String> fields, Word word) {
+        fields.add(word.getEnglishWord());
+        fields.add(word.getPartOfSpeech());
+        fields.add(word.getPhoneticSpelling());
+        fields.add(word.getVietnameseMeaning());
+        fields.add(word.getDetailedDefinition());
+        fields.add(word.getExampleSentence());
+        fields.add(word.getImagePath() != null ? word.getImagePath() : "");
+    }
+}
@@ -0,0 +1,161 @@
+package com.dictionary.server;
+
+import com.dictionary.protocol.WordFields;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ nhớ đệm phản hồi SUCCESS của các lệnh tra cứu, khóa theo lệnh + tham số đã chuẩn hóa.
+ * Giới hạn cả số mục lẫn tổng kích thước ước lượng; vượt giới hạn thì bỏ mục ít dùng nhất (LRU).
+ *
+ * Khi một từ thay đổi, chỉ bỏ các mục có thể bị ảnh hưởng: mục có chứa từ đó trong kết quả,
+ * mục tìm chứa mà từ khóa nằm trong từ, và mục tìm tiếng Việt mà từ khóa nằm trong nghĩa mới.
+ */
+class ResponseCache {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    // Tăng mỗi lần hủy mục: kết quả đọc từ CSDL trước lần hủy không được đưa vào cache nữa
+    private long generation;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Entry {
+        final String command;
+        final String argument;
+        final List<String> response;
+        final Set<String> englishWords;
+        final long bytes;
+
+        Entry(String command, String argument, List<String> response, Set<String> englishWords, long bytes) {
+            this.command = command;
+            this.argument = argument;
+            this.response = response;
+            this.englishWords = englishWords;
+            this.bytes = bytes;
+        }
+    }
+
+    ResponseCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    static String normalize(String argument) {
+        return argument.toLowerCase(Locale.ROOT);
+    }
+
+    synchronized List<String> get(String command, String argument) {
+        Entry entry = entries.get(command + '|' + argument);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.response;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /** Lưu phản hồi SUCCESS; bỏ qua nếu đã có thay đổi dữ liệu kể từ lúc bắt đầu truy vấn */
+    synchronized void put(String command, String argument, List<String> response, long startGeneration) {
+        if (startGeneration != generation || response.isEmpty() || !"SUCCESS".equals(response.get(0))) {
+            return;
+        }
+        Set<String> englishWords = new HashSet<>();
+        long bytes = 64;
+        for (int i = 0; i < response.size(); i++) {
+            String field = response.get(i);
+            bytes += 16 + (field != null ? field.length() * 2L : 0);
+            if (i % 7 == 1 && field != null) {
+                englishWords.add(field.toLowerCase(Locale.ROOT));
+            }
+        }
+        if (bytes > maxBytes) {
+            return;
+        }
+        String key = command + '|' + argument;
+        // WordFields không sửa được và giữ các Word cùng dạng mã hóa sẵn, nên mỗi lần trúng cache
+        // chỉ còn việc chép byte ra socket
+        List<String> stored = response instanceof WordFields ? response
+                : Collections.unmodifiableList(new ArrayList<>(response));
+        Entry old = entries.put(key, new Entry(command, argument, stored, englishWords, bytes));
+        if (old != null) {
+            totalBytes -= old.bytes;
+        }
+        totalBytes += bytes;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            totalBytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /** Bỏ các mục có thể bị ảnh hưởng khi englishWord thay đổi; meanings là nghĩa hiện tại của từ */
+    synchronized void invalidate(String englishWord, List<String> meanings) {
+        generation++;
+        String word = englishWord.toLowerCase(Locale.ROOT);
+        List<String> foldedMeanings = new ArrayList<>(meanings.size());
+        for (String meaning : meanings) {
+            if (meaning != null) foldedMeanings.add(fold(meaning));
+        }
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.englishWords.contains(word) || matches(entry, word, foldedMeanings)) {
+                totalBytes -= entry.bytes;
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean matches(Entry entry, String word, List<String> foldedMeanings) {
+        switch (entry.command) {
+            case "SEARCH":
+                return entry.argument.equals(word);
+            case "SEARCH_CONTAINING":
+                return word.contains(entry.argument);
+            case "SEARCH_VIETNAMESE":
+            case "SEARCH_VIETNAMESE_CONTAINING":
+                String argument = fold(entry.argument);
+                for (String meaning : foldedMeanings) {
+                    if (meaning.contains(argument)) return true;
+                }
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /** Bỏ dấu và chữ hoa như collation không phân biệt dấu của MySQL để không sót mục cần hủy */
+    private static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").replace('đ', 'd');
+    }
+
+    synchronized String stats() {
+        long h = hits.get();
+        long m = misses.get();
+        return String.format("cache: %d mục, %d KB, hit %d / miss %d (%.1f%%), loại bỏ %d, hủy %d",
+                entries.size(), totalBytes / 1024, h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m),
+                evictions.get(), invalidations.get());
+    }
+}
@@ -0,0 +1,79 @@
+package com.dictionary.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dọn các phiên ClientHandler không còn hoạt động. Socket không có timeout đọc nên client biến
+ * mất mà không gửi FIN (máy ngủ, rút mạng) sẽ giữ thread và socket mãi mãi; reaper định kỳ duyệt
+ * các phiên: im lặng quá heartbeatIntervalMs thì gửi HEARTBEAT (chỉ cho client đã thỏa thuận),
+ * im lặng quá idleTimeoutMs thì đóng phiên. Phiên đang có yêu cầu xử lý dở không bị đóng.
+ */
+class SessionReaper {
+    private final List<ClientHandler> sessions;
+    private final long idleTimeoutNanos;
+    private final long heartbeatIntervalNanos;
+    private final AtomicLong reaped = new AtomicLong();
+    private final ScheduledExecutorService timer;
+    // Gửi HEARTBEAT trên thread riêng: ghi tới client không đọc có thể bị chặn, không được làm treo lượt quét
+    private final ExecutorService heartbeats;
+
+    SessionReaper(List<ClientHandler> sessions, long idleTimeoutMs, long heartbeatIntervalMs) {
+        this.sessions = sessions;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMs);
+        AtomicInteger counter = new AtomicInteger();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dictionary-session-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.heartbeats = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "dictionary-heartbeat-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        long smallest = heartbeatIntervalNanos > 0 ? Math.min(heartbeatIntervalNanos, idleTimeoutNanos) : idleTimeoutNanos;
+        long period = Math.max(TimeUnit.SECONDS.toNanos(1), smallest / 4);
+        timer.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    void stop() {
+        timer.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+    /** Số phiên đã bị đóng vì không hoạt động */
+    long getReapedCount() {
+        return reaped.get();
+    }
+
+    private void sweep() {
+        List<ClientHandler> snapshot;
+        synchronized (sessions) {
+            snapshot = new ArrayList<>(sessions);
+        }
+        long now = System.nanoTime();
+        for (ClientHandler session : snapshot) {
+            if (session.isBusy()) continue;
+            long idle = now - session.getLastActivityNanos();
+            if (idle >= idleTimeoutNanos) {
+                reaped.incrementAndGet();
+                System.out.println("Đóng phiên không hoạt động " + TimeUnit.NANOSECONDS.toSeconds(idle)
+                        + " giây: " + session.getRemoteAddress());
+                session.shutdown();
+            } else if (heartbeatIntervalNanos > 0 && idle >= heartbeatIntervalNanos && session.beginHeartbeat()) {
+                heartbeats.execute(session::sendHeartbeat);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.dictionary.server;
+
+import com.dictionary.database.DictionaryDAO;
+import com.dictionary.model.Suggestion;
+import com.dictionary.model.Word;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Chỉ mục gợi ý trong bộ nhớ cho lệnh SUGGEST, thay cho truy vấn LIKE '%x%' mỗi lần gõ phím.
+ * Khóa được sắp xếp nên tìm theo tiền tố chỉ là một lần duyệt khoảng; nếu chưa đủ số gợi ý
+ * thì bổ sung các khóa chứa chuỗi (ở vị trí khác đầu), nhưng chỉ xét tối đa SCAN_BUDGET khóa
+ * đầu tiên để mỗi lần gõ phím không thành một lần quét toàn bộ từ điển.
+ *
+ * Nạp toàn bộ một lần rồi cập nhật từng từ khi DictionaryDAO báo thay đổi.
+ */
+class SuggestionIndex implements DictionaryDAO.WordChangeListener {
+    private static final int MAX_MEANING_LENGTH = 60;
+    // Số khóa tối đa được duyệt khi tìm khớp ở giữa (0 = chỉ gợi ý theo tiền tố)
+    private static final int SCAN_BUDGET = Integer.getInteger("dictionary.server.suggestScanBudget", 5000);
+    // Ngăn cách nghĩa và từ tiếng Anh trong khóa Việt → Anh (một nghĩa có thể thuộc nhiều từ)
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final DictionaryDAO dictionaryDAO;
+    // Anh → Việt: khóa là từ tiếng Anh viết thường
+    private final ConcurrentSkipListMap<String, Suggestion> english = new ConcurrentSkipListMap<>();
+    // Việt → Anh: khóa là nghĩa viết thường + KEY_SEPARATOR + từ tiếng Anh
+    private final ConcurrentSkipListMap<String, Suggestion> vietnamese = new ConcurrentSkipListMap<>();
+    // Các khóa Việt → Anh của mỗi từ, để gỡ khi từ thay đổi (chỉ truy cập khi giữ khóa this)
+    private final Map<String, List<String>> vietnameseKeys = new HashMap<>();
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "dictionary-suggest-updater");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean loaded;
+
+    SuggestionIndex(DictionaryDAO dictionaryDAO) {
+        this.dictionaryDAO = dictionaryDAO;
+        DictionaryDAO.addChangeListener(this);
+    }
+
+    /** Nạp chỉ mục nếu chưa có; gọi lại được nếu lần trước lỗi */
+    void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            english.clear();
+            vietnamese.clear();
+            vietnameseKeys.clear();
+            // Các dòng đến theo thứ tự english_word nên gom nghĩa của một từ mà không giữ cả bảng
+            List<Word> group = new ArrayList<>();
+            int count = dictionaryDAO.forEachWord(word -> {
+                if (!group.isEmpty() && !group.get(0).getEnglishWord().equals(word.getEnglishWord())) {
+                    put(group.get(0).getEnglishWord(), group);
+                    group.clear();
+                }
+                group.add(word);
+            });
+            if (!group.isEmpty()) {
+                put(group.get(0).getEnglishWord(), group);
+            }
+            if (count >= 0) {
+                loaded = true;
+                System.out.println("Đã nạp chỉ mục gợi ý: " + english.size() + " từ");
+            }
+        }
+    }
+
+    /** DAO báo một từ vừa thay đổi: đọc lại riêng từ đó trên thread nền */
+    @Override
+    public void wordChanged(String englishWord) {
+        updater.execute(() -> {
+            List<Word> rows = dictionaryDAO.searchWord(englishWord);
+            synchronized (this) {
+                put(englishWord, rows);
+            }
+        });
+    }
+
+    /**
+     * Tối đa limit gợi ý: khóa bắt đầu bằng prefix trước (theo thứ tự từ điển), sau đó tới khóa
+     * chứa prefix ở vị trí khác trong SCAN_BUDGET khóa đầu (từ điển lớn hơn thì có thể sót khớp ở giữa).
+     */
+    List<Suggestion> suggest(boolean vietnameseDirection, String prefix, int limit) {
+        ensureLoaded();
+        NavigableMap<String, Suggestion> map = vietnameseDirection ? vietnamese : english;
+        String query = prefix.trim().toLowerCase(Locale.ROOT);
+        List<Suggestion> result = new ArrayList<>(limit);
+        if (query.isEmpty()) {
+            return result;
+        }
+        for (Suggestion s : map.subMap(query, true, query + Character.MAX_VALUE, true).values()) {
+            if (result.size() >= limit) return result;
+            result.add(s);
+        }
+        int scanned = 0;
+        for (Map.Entry<String, Suggestion> entry : map.entrySet()) {
+            if (result.size() >= limit || scanned++ >= SCAN_BUDGET) break;
+            String key = entry.getKey();
+            if (key.startsWith(query)) continue;
+            int end = key.indexOf(KEY_SEPARATOR);
+            int pos = key.indexOf(query);
+            if (pos > 0 && (end < 0 || pos + query.length() <= end)) {
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    void close() {
+        DictionaryDAO.removeChangeListener(this);
+        updater.shutdownNow();
+    }
+
+    /** Thay toàn bộ mục của một từ bằng các dòng hiện tại (rỗng nghĩa là từ đã bị xóa) */
+    private void put(String englishWord, List<Word> rows) {
+        String key = englishWord.toLowerCase(Locale.ROOT);
+        List<String> oldKeys = vietnameseKeys.remove(key);
+        if (oldKeys != null) {
+            for (String oldKey : oldKeys) {
+                vietnamese.remove(oldKey);
+            }
+        }
+        if (rows.isEmpty()) {
+            english.remove(key);
+            return;
+        }
+
+        Set<String> meanings = new LinkedHashSet<>();
+        List<String> newKeys = new ArrayList<>();
+        for (Word word : rows) {
+            String meaning = word.getVietnameseMeaning();
+            if (meaning == null || meaning.isEmpty()) continue;
+            meanings.add(meaning);
+            String vietnameseKey = meaning.toLowerCase(Locale.ROOT) + KEY_SEPARATOR + key;
+            vietnamese.put(vietnameseKey, new Suggestion(meaning, englishWord));
+            newKeys.add(vietnameseKey);
+        }
+        english.put(key, new Suggestion(englishWord, shorten(String.join("; ", meanings))));
+        vietnameseKeys.put(key, newKeys);
+    }
+
+    private static String shorten(String meaning) {
+        return meaning.length() <= MAX_MEANING_LENGTH ? meaning : meaning.substring(0, MAX_MEANING_LENGTH - 1) + "…";
+    }
+}
@@ -0,0 +1,68 @@
+package com.dictionary.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReconnectBackoffTest {
+    private static final long BASE_MS = 100;
+    private static final long MAX_MS = 1000;
+
+    @Test
+    void delayStaysUnderDoublingCeilingUntilMaximum() {
+        for (int run = 0; run < 200; run++) {
+            ReconnectBackoff backoff = new ReconnectBackoff(BASE_MS, MAX_MS);
+            long ceiling = BASE_MS;
+            for (int attempt = 0; attempt < 40; attempt++) {
+                long delay = backoff.nextDelayMs();
+                assertTrue(delay >= 0 && delay <= ceiling, "lần " + attempt + ": " + delay + " > " + ceiling);
+                ceiling = Math.min(MAX_MS, ceiling * 2);
+            }
+        }
+    }
+
+    @Test
+    void firstDelaysAreSpreadOverTheWholeWindow() {
+        // Toàn bộ jitter: nhiều client mất kết nối cùng lúc không thử lại cùng một thời điểm
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < 500; i++) {
+            long delay = new ReconnectBackoff(BASE_MS, MAX_MS).nextDelayMs();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(min < BASE_MS / 4, "nhỏ nhất " + min);
+        assertTrue(max > BASE_MS * 3 / 4, "lớn nhất " + max);
+    }
+
+    @Test
+    void laterDelaysReachBeyondTheBase() {
+        ReconnectBackoff backoff = new ReconnectBackoff(BASE_MS, MAX_MS);
+        for (int i = 0; i < 10; i++) {
+            backoff.nextDelayMs();
+        }
+        long max = 0;
+        for (int i = 0; i < 200; i++) {
+            max = Math.max(max, backoff.nextDelayMs());
+        }
+        assertTrue(max > MAX_MS / 2 && max <= MAX_MS, "lớn nhất " + max);
+    }
+
+    @Test
+    void resetStartsAgainFromTheBase() {
+        ReconnectBackoff backoff = new ReconnectBackoff(BASE_MS, MAX_MS);
+        for (int i = 0; i < 10; i++) {
+            backoff.nextDelayMs();
+        }
+        backoff.reset();
+        assertTrue(backoff.nextDelayMs() <= BASE_MS);
+    }
+
+    @Test
+    void hugeAttemptCountDoesNotOverflow() {
+        ReconnectBackoff backoff = new ReconnectBackoff(BASE_MS, Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(backoff.nextDelayMs() >= 0);
+        }
+    }
+}
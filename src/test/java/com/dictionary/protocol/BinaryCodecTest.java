@@ -0,0 +1,152 @@
+package com.dictionary.protocol;
+
+import com.dictionary.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCodecTest {
+
+    private static BinaryCodec.Frame roundTrip(long tag, List<String> fields, String compression, int threshold)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.writeFrame(out, tag, fields, compression, threshold);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        BinaryCodec.Frame frame = BinaryCodec.readFrame(in, compression);
+        assertEquals(-1, in.read(), "khung phải được đọc hết");
+        return frame;
+    }
+
+    @Test
+    void roundTripsTagAndFields() throws IOException {
+        BinaryCodec.Frame frame = roundTrip(300, List.of("SEARCH", "xin chào"), null, 0);
+        assertEquals(300L, frame.tag);
+        assertArrayEquals(new String[]{"SEARCH", "xin chào"}, frame.fields);
+    }
+
+    @Test
+    void distinguishesNullFromEmptyField() throws IOException {
+        BinaryCodec.Frame frame = roundTrip(0, Arrays.asList("A", null, "", "B"), null, 0);
+        assertArrayEquals(new String[]{"A", null, "", "B"}, frame.fields);
+    }
+
+    @Test
+    void keepsSeparatorAndNewlineInsideFields() throws IOException {
+        BinaryCodec.Frame frame = roundTrip(1, List.of("a|b", "dòng 1\ndòng 2\r\n"), null, 0);
+        assertArrayEquals(new String[]{"a|b", "dòng 1\ndòng 2\r\n"}, frame.fields);
+    }
+
+    @Test
+    void roundTripsFrameWithoutFields() throws IOException {
+        BinaryCodec.Frame frame = roundTrip(5, Collections.emptyList(), null, 0);
+        assertEquals(5L, frame.tag);
+        assertEquals(0, frame.fields.length);
+    }
+
+    @Test
+    void roundTripsLargeTag() throws IOException {
+        assertEquals(Long.MAX_VALUE, roundTrip(Long.MAX_VALUE, List.of("PING"), null, 0).tag);
+    }
+
+    @Test
+    void roundTripsCompressedFrames() throws IOException {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            fields.add("từ " + i);
+        }
+        for (String algorithm : List.of(Compression.DEFLATE, Compression.GZIP)) {
+            ByteArrayOutputStream plain = new ByteArrayOutputStream();
+            BinaryCodec.writeFrame(plain, 9, fields, null, 0);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            BinaryCodec.writeFrame(compressed, 9, fields, algorithm, 16);
+            assertTrue(compressed.size() < plain.size(), algorithm + " phải nhỏ hơn khung thường");
+
+            BinaryCodec.Frame frame = roundTrip(9, fields, algorithm, 16);
+            assertEquals(9L, frame.tag);
+            assertArrayEquals(fields.toArray(new String[0]), frame.fields);
+        }
+    }
+
+    @Test
+    void smallBodyIsNotCompressed() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.writeFrame(out, 1, List.of("PONG"), Compression.DEFLATE, 1024);
+        // Đọc được khi chưa thỏa thuận nén nghĩa là cờ nén không bật
+        BinaryCodec.Frame frame = BinaryCodec.readFrame(new ByteArrayInputStream(out.toByteArray()));
+        assertArrayEquals(new String[]{"PONG"}, frame.fields);
+    }
+
+    @Test
+    void compressedFrameWithoutNegotiationFails() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.writeFrame(out, 1, List.of("SUCCESS", "x"), Compression.GZIP, 0);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertThrows(IOException.class, () -> BinaryCodec.readFrame(in));
+    }
+
+    @Test
+    void wordFieldsEncodeLikePlainFields() throws IOException {
+        List<Word> words = List.of(
+                new Word("hello", "exclamation", "/h/", "xin chào", "chào", "Hello!", null),
+                new Word("a|b", "noun", "", "dòng\nmới", "", "", "a.png"));
+        WordFields fields = new WordFields(List.of("PAGE", "cursor"), words);
+
+        ByteArrayOutputStream fromWords = new ByteArrayOutputStream();
+        BinaryCodec.writeFrame(fromWords, 3, fields);
+        ByteArrayOutputStream fromList = new ByteArrayOutputStream();
+        BinaryCodec.writeFrame(fromList, 3, new ArrayList<>(fields));
+        assertArrayEquals(fromList.toByteArray(), fromWords.toByteArray());
+
+        BinaryCodec.Frame frame = BinaryCodec.readFrame(new ByteArrayInputStream(fromWords.toByteArray()));
+        assertEquals(2 + 2 * WordFields.FIELDS_PER_WORD, frame.fields.length);
+        assertEquals("a|b", frame.fields[9]);
+        assertEquals("", frame.fields[8], "ảnh null được gửi thành chuỗi rỗng");
+    }
+
+    @Test
+    void endOfStreamAtFrameBoundaryReturnsNull() throws IOException {
+        assertNull(BinaryCodec.readFrame(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    void truncatedFrameFails() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.writeFrame(out, 1, List.of("SEARCH", "hello"));
+        byte[] bytes = out.toByteArray();
+        ByteArrayInputStream in = new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2));
+        assertThrows(EOFException.class, () -> BinaryCodec.readFrame(in));
+    }
+
+    @Test
+    void oversizedFrameIsRejectedBeforeReadingPayload() {
+        int length = BinaryCodec.MAX_FRAME_SIZE + 1;
+        byte[] header = {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+        assertThrows(IOException.class, () -> BinaryCodec.readFrame(new ByteArrayInputStream(header)));
+    }
+
+    @Test
+    void fieldLongerThanFrameIsRejected() throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        BinaryCodec.writeVarint(payload, 0);   // mã
+        BinaryCodec.writeVarint(payload, 1);   // một trường
+        BinaryCodec.writeVarint(payload, 101); // khai 100 byte nhưng không có
+        byte[] body = payload.toByteArray();
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(new byte[]{0, 0, 0, (byte) body.length});
+        frame.write(body);
+        assertThrows(IOException.class, () -> BinaryCodec.readFrame(new ByteArrayInputStream(frame.toByteArray())));
+    }
+}
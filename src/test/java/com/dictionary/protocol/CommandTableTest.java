@@ -0,0 +1,59 @@
+package com.dictionary.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CommandTableTest {
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void findsEveryRegisteredName() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            names.add("CMD_" + i);
+        }
+        CommandTable table = new CommandTable(names);
+        for (String name : names) {
+            byte[] line = bytes(name);
+            assertSame(name, table.lookup(line, 0, line.length));
+        }
+    }
+
+    @Test
+    void looksUpSubrangeOfLine() {
+        String search = "SEARCH";
+        CommandTable table = new CommandTable(List.of(search, "PING"));
+        byte[] line = bytes("#7|SEARCH|x");
+        assertSame(search, table.lookup(line, 3, 9));
+    }
+
+    @Test
+    void returnsNullForUnknownOrPartialName() {
+        CommandTable table = new CommandTable(List.of("SEARCH", "SEARCH_CONTAINING"));
+        byte[] line = bytes("SEARCH_CONTAINING");
+        assertNull(table.lookup(line, 0, 7));
+        assertNull(table.lookup(bytes("search"), 0, 6));
+        assertNull(table.lookup(line, 0, 0));
+    }
+
+    @Test
+    void emptyTableFindsNothing() {
+        byte[] line = bytes("PING");
+        assertNull(new CommandTable(List.of()).lookup(line, 0, line.length));
+    }
+
+    @Test
+    void rejectsNonAsciiName() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandTable(List.of("TRA_CỨU")));
+    }
+}
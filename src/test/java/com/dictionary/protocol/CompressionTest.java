@@ -0,0 +1,69 @@
+package com.dictionary.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionTest {
+    private static final byte[] DATA = "SUCCESS|hello|xin chào|".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void supportsOnlyKnownAlgorithms() {
+        assertTrue(Compression.isSupported(Compression.DEFLATE));
+        assertTrue(Compression.isSupported(Compression.GZIP));
+        assertFalse(Compression.isSupported("BROTLI"));
+        assertFalse(Compression.isSupported(null));
+    }
+
+    @Test
+    void roundTripsBothAlgorithms() throws IOException {
+        for (String algorithm : List.of(Compression.DEFLATE, Compression.GZIP)) {
+            byte[] compressed = Compression.compress(algorithm, DATA);
+            assertTrue(compressed.length < DATA.length, algorithm);
+            assertArrayEquals(DATA, Compression.decompress(algorithm, compressed));
+        }
+    }
+
+    @Test
+    void roundTripsEmptyInput() throws IOException {
+        for (String algorithm : List.of(Compression.DEFLATE, Compression.GZIP)) {
+            assertEquals(0, Compression.decompress(algorithm, Compression.compress(algorithm, new byte[0])).length);
+        }
+    }
+
+    @Test
+    void manyCompressionsInARowStillRoundTrip() throws IOException {
+        // Mỗi lần nén dùng Deflater riêng và giải phóng ngay; không được dùng lẫn trạng thái
+        for (int i = 0; i < 1000; i++) {
+            byte[] data = ("dòng " + i).getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(data, Compression.decompress(Compression.DEFLATE, Compression.compress(Compression.DEFLATE, data)));
+        }
+    }
+
+    @Test
+    void textLineRoundTrips() throws IOException {
+        String line = Compression.compressLine(Compression.GZIP, DATA);
+        assertTrue(line.startsWith("COMPRESSED|GZIP|"));
+        assertEquals(new String(DATA, StandardCharsets.UTF_8), Compression.decompressLine(line.split("\\|", -1)));
+    }
+
+    @Test
+    void textLineWithMissingFieldsFails() {
+        assertThrows(IOException.class, () -> Compression.decompressLine(new String[]{"COMPRESSED", "GZIP"}));
+    }
+
+    @Test
+    void corruptDataFails() {
+        byte[] garbage = "không phải dữ liệu nén".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> Compression.decompress(Compression.GZIP, garbage));
+        assertThrows(IOException.class, () -> Compression.decompress(Compression.DEFLATE, garbage));
+    }
+}
@@ -0,0 +1,114 @@
+package com.dictionary.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestParserTest {
+    private static final String SEARCH = "SEARCH";
+    private final RequestParser parser = new RequestParser(new CommandTable(List.of(SEARCH, "PING")));
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void splitsFieldsAndStripsLineEnding() throws IOException {
+        InputStream in = input("SEARCH|hello\r\nPING\n");
+        assertTrue(parser.readLine(in));
+        assertArrayEquals(new String[]{"SEARCH", "hello"}, parser.fields());
+        assertTrue(parser.readLine(in));
+        assertArrayEquals(new String[]{"PING"}, parser.fields());
+        assertFalse(parser.readLine(in));
+    }
+
+    @Test
+    void keepsEmptyFieldsIncludingTrailingOnes() throws IOException {
+        assertTrue(parser.readLine(input("SEARCH||a||\n")));
+        assertArrayEquals(new String[]{"SEARCH", "", "a", "", ""}, parser.fields());
+    }
+
+    @Test
+    void returnsRegisteredConstantForKnownCommand() throws IOException {
+        assertTrue(parser.readLine(input("SEARCH|x\n")));
+        assertSame(SEARCH, parser.fields()[0]);
+    }
+
+    @Test
+    void decodesUnknownCommandAndUtf8Arguments() throws IOException {
+        assertTrue(parser.readLine(input("SEARCH_VIETNAMESE|xin chào|đẹp\n")));
+        assertArrayEquals(new String[]{"SEARCH_VIETNAMESE", "xin chào", "đẹp"}, parser.fields());
+    }
+
+    @Test
+    void readsLastLineWithoutNewline() throws IOException {
+        InputStream in = input("PING");
+        assertTrue(parser.readLine(in));
+        assertArrayEquals(new String[]{"PING"}, parser.fields());
+        assertFalse(parser.readLine(in));
+    }
+
+    @Test
+    void parsesPipelineTag() throws IOException {
+        assertTrue(parser.readLine(input("#42|SEARCH|a\n")));
+        assertEquals(42L, parser.tag());
+        assertArrayEquals(new String[]{"SEARCH", "a"}, parser.fields());
+    }
+
+    @Test
+    void lineWithoutTagHasTagZero() throws IOException {
+        assertTrue(parser.readLine(input("SEARCH|#1\n")));
+        assertEquals(0L, parser.tag());
+        assertArrayEquals(new String[]{"SEARCH", "#1"}, parser.fields());
+    }
+
+    @Test
+    void invalidTagIsNegative() throws IOException {
+        assertTrue(parser.readLine(input("#4x|PING\n")));
+        assertEquals(-1L, parser.tag());
+        assertTrue(parser.readLine(input("#|PING\n")));
+        assertEquals(-1L, parser.tag());
+        assertTrue(parser.readLine(input("#99999999999999999999|PING\n")));
+        assertEquals(-1L, parser.tag());
+    }
+
+    @Test
+    void acceptsLineAtMaximumLength() throws IOException {
+        char[] body = new char[RequestParser.MAX_LINE_LENGTH - "SEARCH|".length()];
+        Arrays.fill(body, 'a');
+        assertTrue(parser.readLine(input("SEARCH|" + new String(body) + "\n")));
+        assertEquals(RequestParser.MAX_LINE_LENGTH, parser.length());
+    }
+
+    @Test
+    void rejectsLineLongerThanMaximum() {
+        char[] body = new char[RequestParser.MAX_LINE_LENGTH];
+        Arrays.fill(body, 'a');
+        InputStream in = input("SEARCH|" + new String(body) + "\n");
+        assertThrows(RequestParser.LineTooLongException.class, () -> parser.readLine(in));
+    }
+
+    @Test
+    void feedAssemblesLineAcrossBuffers() {
+        assertFalse(parser.feed(ByteBuffer.wrap("SEA".getBytes(StandardCharsets.UTF_8))));
+        ByteBuffer rest = ByteBuffer.wrap("RCH|hi\nPING\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(parser.feed(rest));
+        assertArrayEquals(new String[]{"SEARCH", "hi"}, parser.fields());
+        assertTrue(parser.feed(rest));
+        assertArrayEquals(new String[]{"PING"}, parser.fields());
+        assertFalse(rest.hasRemaining());
+    }
+}
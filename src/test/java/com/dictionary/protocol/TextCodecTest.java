@@ -0,0 +1,57 @@
+package com.dictionary.protocol;
+
+import com.dictionary.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TextCodecTest {
+
+    @Test
+    void readLineStripsLineEndingsAndReturnsNullAtEnd() throws IOException {
+        InputStream in = new ByteArrayInputStream("a|b\r\nxin chào\nlast".getBytes(StandardCharsets.UTF_8));
+        assertEquals("a|b", TextCodec.readLine(in));
+        assertEquals("xin chào", TextCodec.readLine(in));
+        assertEquals("last", TextCodec.readLine(in));
+        assertNull(TextCodec.readLine(in));
+    }
+
+    @Test
+    void writeLineRoundTrips() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TextCodec.writeLine(out, "SUCCESS|đẹp");
+        TextCodec.writeLine(out, TextCodec.encode(List.of("NOT_FOUND", "x")));
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals("SUCCESS|đẹp", TextCodec.readLine(in));
+        assertEquals("NOT_FOUND|x", TextCodec.readLine(in));
+        assertNull(TextCodec.readLine(in));
+    }
+
+    @Test
+    void encodeJoinsFieldsWithSeparator() {
+        byte[] line = TextCodec.encode(List.of("SUCCESS", "", "a"));
+        assertEquals("SUCCESS||a", new String(line, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void wordFieldsEncodeLikePlainFields() {
+        List<Word> words = List.of(
+                new Word("hello", "exclamation", "/həˈləʊ/", "xin chào", "chào", "Hello!", null),
+                new Word("dog", "noun", "/dɒɡ/", "con chó", "động vật", "", "dog.png"));
+        WordFields fields = new WordFields(List.of("SUCCESS"), words);
+        String expected = String.join("|", List.copyOf(fields));
+        assertEquals(expected, new String(TextCodec.encode(fields), StandardCharsets.UTF_8));
+        // Lần ghi thứ hai dùng các đoạn đã mã hóa sẵn
+        assertEquals(expected, new String(TextCodec.encode(fields), StandardCharsets.UTF_8));
+        assertEquals("SUCCESS|hello|exclamation|/həˈləʊ/|xin chào|chào|Hello!||dog|noun|/dɒɡ/|con chó|động vật||dog.png",
+                expected);
+    }
+}
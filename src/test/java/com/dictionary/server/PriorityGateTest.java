@@ -0,0 +1,125 @@
+package com.dictionary.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityGateTest {
+    private static final PriorityGate.Priority INTERACTIVE = PriorityGate.Priority.INTERACTIVE;
+    private static final PriorityGate.Priority BULK = PriorityGate.Priority.BULK;
+
+    /** Thread chờ vào cổng; latch mở khi đã được vào */
+    private static final class Waiter extends Thread {
+        final CountDownLatch granted = new CountDownLatch(1);
+        private final PriorityGate gate;
+        private final PriorityGate.Priority priority;
+
+        Waiter(PriorityGate gate, PriorityGate.Priority priority) {
+            this.gate = gate;
+            this.priority = priority;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                gate.acquire(priority);
+                granted.countDown();
+            } catch (InterruptedException ignore) {
+            }
+        }
+
+        /** Khởi động rồi chờ tới khi thread đã nằm trong hàng đợi của cổng */
+        Waiter startWaiting() throws InterruptedException {
+            start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (getState() != State.WAITING && granted.getCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            return this;
+        }
+
+        boolean isGranted() throws InterruptedException {
+            return granted.await(2, TimeUnit.SECONDS);
+        }
+
+        boolean isStillWaiting() throws InterruptedException {
+            return !granted.await(100, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    void bulkNeverTakesTheLastPermit() throws InterruptedException {
+        PriorityGate gate = new PriorityGate(2, 8);
+        gate.acquire(BULK);
+        Waiter secondBulk = new Waiter(gate, BULK).startWaiting();
+        assertTrue(secondBulk.isStillWaiting(), "hàng loạt chỉ được giữ permits - 1 chỗ");
+        // Chỗ còn lại vẫn dành cho tra cứu
+        Waiter lookup = new Waiter(gate, INTERACTIVE).startWaiting();
+        assertTrue(lookup.isGranted());
+
+        gate.release(BULK);
+        assertTrue(secondBulk.isGranted());
+    }
+
+    @Test
+    void waitingInteractiveIsGrantedBeforeEarlierBulk() throws InterruptedException {
+        PriorityGate gate = new PriorityGate(3, 8);
+        for (int i = 0; i < 3; i++) {
+            gate.acquire(INTERACTIVE);
+        }
+        Waiter bulk = new Waiter(gate, BULK).startWaiting();
+        Waiter lookup = new Waiter(gate, INTERACTIVE).startWaiting();
+
+        gate.release(INTERACTIVE);
+        assertTrue(lookup.isGranted());
+        assertTrue(bulk.isStillWaiting());
+
+        gate.release(INTERACTIVE);
+        assertTrue(bulk.isGranted());
+    }
+
+    @Test
+    void bulkGetsATurnAfterInteractiveBurst() throws InterruptedException {
+        int burst = 2;
+        PriorityGate gate = new PriorityGate(1, burst);
+        gate.acquire(INTERACTIVE);
+        Waiter bulk = new Waiter(gate, BULK).startWaiting();
+        Waiter[] lookups = new Waiter[burst + 1];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = new Waiter(gate, INTERACTIVE).startWaiting();
+        }
+
+        // Hai lượt đầu cho tra cứu, lượt thứ ba nhường hàng loạt dù vẫn còn tra cứu chờ
+        for (int i = 0; i < burst; i++) {
+            gate.release(INTERACTIVE);
+            assertTrue(lookups[i].isGranted());
+        }
+        gate.release(INTERACTIVE);
+        assertTrue(bulk.isGranted());
+        assertTrue(lookups[burst].isStillWaiting());
+
+        gate.release(BULK);
+        assertTrue(lookups[burst].isGranted());
+    }
+
+    @Test
+    void interruptedWaiterLeavesTheQueue() throws InterruptedException {
+        PriorityGate gate = new PriorityGate(1, 8);
+        gate.acquire(INTERACTIVE);
+        Waiter interrupted = new Waiter(gate, INTERACTIVE).startWaiting();
+        interrupted.interrupt();
+        interrupted.join(2000);
+        assertFalse(interrupted.isAlive());
+
+        Waiter next = new Waiter(gate, INTERACTIVE).startWaiting();
+        gate.release(INTERACTIVE);
+        assertTrue(next.isGranted(), "chỗ trống không được cấp cho thread đã bỏ đi");
+        assertEquals(1, interrupted.granted.getCount());
+    }
+}
@@ -0,0 +1,82 @@
+package com.dictionary.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dùng hạn mức mặc định của nhóm SCAN (5/s mỗi kết nối, 20/s mỗi IP, dồn 2 giây): token nạp lại
+ * trong lúc chạy test không đáng kể nên đếm được chính xác tới sai số một token.
+ */
+class RateLimiterTest {
+    private static final int CONNECTION_BURST = CostClass.SCAN.connectionRate * 2;
+    private static final int IP_BURST = CostClass.SCAN.ipRate * 2;
+
+    private static InetAddress address(int last) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) last});
+    }
+
+    private static int allowed(RateLimiter.Session session, int attempts) {
+        int allowed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (session.tryAcquire(CostClass.SCAN) == 0) allowed++;
+        }
+        return allowed;
+    }
+
+    @Test
+    void connectionIsLimitedToItsBurst() throws UnknownHostException {
+        RateLimiter.Session session = new RateLimiter().open(address(1));
+        int allowed = allowed(session, CONNECTION_BURST * 3);
+        assertTrue(allowed >= CONNECTION_BURST && allowed <= CONNECTION_BURST + 1, "được nhận " + allowed);
+    }
+
+    @Test
+    void limitedRequestGetsPositiveRetryAfter() throws UnknownHostException {
+        RateLimiter.Session session = new RateLimiter().open(address(1));
+        allowed(session, CONNECTION_BURST * 2);
+        long retryAfter = session.tryAcquire(CostClass.SCAN);
+        assertTrue(retryAfter > 0 && retryAfter <= 1000 / CostClass.SCAN.connectionRate + 1, "retry-after " + retryAfter);
+    }
+
+    @Test
+    void connectionsFromOneAddressShareItsBucket() throws UnknownHostException {
+        RateLimiter limiter = new RateLimiter();
+        int sessions = IP_BURST / CONNECTION_BURST + 2;
+        int total = 0;
+        for (int i = 0; i < sessions; i++) {
+            total += allowed(limiter.open(address(1)), CONNECTION_BURST);
+        }
+        assertTrue(total >= IP_BURST && total <= IP_BURST + 1, "được nhận " + total);
+    }
+
+    @Test
+    void otherAddressesKeepTheirOwnQuota() throws UnknownHostException {
+        RateLimiter limiter = new RateLimiter();
+        allowed(limiter.open(address(1)), CONNECTION_BURST * 2);
+        assertEquals(CONNECTION_BURST, allowed(limiter.open(address(2)), CONNECTION_BURST));
+    }
+
+    @Test
+    void reconnectingDoesNotResetAddressQuota() throws UnknownHostException {
+        RateLimiter limiter = new RateLimiter();
+        for (int i = 0; i < IP_BURST / CONNECTION_BURST; i++) {
+            RateLimiter.Session session = limiter.open(address(1));
+            allowed(session, CONNECTION_BURST);
+            session.close();
+        }
+        assertTrue(allowed(limiter.open(address(1)), CONNECTION_BURST) <= 1);
+    }
+
+    @Test
+    void inlineCommandsAreNeverLimited() throws UnknownHostException {
+        RateLimiter.Session session = new RateLimiter().open(address(1));
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0L, session.tryAcquire(CostClass.INLINE));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.dictionary.server;
+
+import com.dictionary.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Con trỏ trang của SEARCH_CONTAINING|từ khóa|limit|con trỏ */
+class RequestProcessorCursorTest {
+
+    private static Word word(String english, String partOfSpeech) {
+        return new Word(english, partOfSpeech, "", "", "", "");
+    }
+
+    @Test
+    void cursorRoundTripsKeyOfLastWord() {
+        String cursor = RequestProcessor.encodeCursor(word("hello", "noun"));
+        assertArrayEquals(new String[]{"hello", "noun"}, RequestProcessor.decodeCursor(cursor));
+    }
+
+    @Test
+    void cursorIsSafeInsideATextField() {
+        String cursor = RequestProcessor.encodeCursor(word("a|b c/đ?", "cụm từ"));
+        assertFalse(cursor.contains("|") || cursor.contains("\n") || cursor.contains("+") || cursor.contains("/"),
+                cursor);
+        assertArrayEquals(new String[]{"a|b c/đ?", "cụm từ"}, RequestProcessor.decodeCursor(cursor));
+    }
+
+    @Test
+    void emptyPartOfSpeechRoundTrips() {
+        String cursor = RequestProcessor.encodeCursor(word("x", ""));
+        assertArrayEquals(new String[]{"x", ""}, RequestProcessor.decodeCursor(cursor));
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertNull(RequestProcessor.decodeCursor("***"));
+        String withoutSeparator = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("hello".getBytes(StandardCharsets.UTF_8));
+        assertNull(RequestProcessor.decodeCursor(withoutSeparator));
+    }
+}
@@ -0,0 +1,130 @@
+package com.dictionary.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheTest {
+    private final ResponseCache cache = new ResponseCache(100, 1024 * 1024);
+
+    /** SUCCESS rồi 7 trường cho mỗi cặp (từ tiếng Anh, nghĩa) */
+    private static List<String> success(String... wordsAndMeanings) {
+        List<String> response = new ArrayList<>();
+        response.add("SUCCESS");
+        for (int i = 0; i < wordsAndMeanings.length; i += 2) {
+            response.add(wordsAndMeanings[i]);
+            response.add("noun");
+            response.add("");
+            response.add(wordsAndMeanings[i + 1]);
+            response.add("");
+            response.add("");
+            response.add("");
+        }
+        return response;
+    }
+
+    private void put(String command, String argument, List<String> response) {
+        cache.put(command, ResponseCache.normalize(argument), response, cache.generation());
+    }
+
+    private List<String> get(String command, String argument) {
+        return cache.get(command, ResponseCache.normalize(argument));
+    }
+
+    @Test
+    void storesOnlySuccessResponses() {
+        put("SEARCH", "hello", success("hello", "xin chào"));
+        put("SEARCH", "zz", List.of("NOT_FOUND", "Không tìm thấy từ: zz"));
+        put("SEARCH", "err", List.of("ERROR", "Lỗi"));
+        assertEquals(success("hello", "xin chào"), get("SEARCH", "hello"));
+        assertNull(get("SEARCH", "zz"));
+        assertNull(get("SEARCH", "err"));
+    }
+
+    @Test
+    void keyIsCaseInsensitive() {
+        put("SEARCH", "Hello", success("hello", "xin chào"));
+        assertNotNull(get("SEARCH", "HELLO"));
+        assertNull(get("SEARCH_CONTAINING", "hello"), "lệnh khác là khóa khác");
+    }
+
+    @Test
+    void resultReadBeforeAnInvalidationIsNotStored() {
+        long before = cache.generation();
+        cache.invalidate("other", List.of());
+        cache.put("SEARCH", "hello", success("hello", "xin chào"), before);
+        assertNull(get("SEARCH", "hello"));
+    }
+
+    @Test
+    void invalidatesEntriesContainingTheWord() {
+        put("SEARCH_CONTAINING", "ell", success("hello", "xin chào", "yellow", "màu vàng"));
+        put("SEARCH_CONTAINING", "dog", success("dog", "con chó"));
+        cache.invalidate("Yellow", List.of("màu vàng"));
+        assertNull(get("SEARCH_CONTAINING", "ell"));
+        assertNotNull(get("SEARCH_CONTAINING", "dog"));
+    }
+
+    @Test
+    void invalidatesExactSearchForTheWord() {
+        // Từ mới thêm: mục cũ không có từ đó trong kết quả nhưng vẫn phải bỏ
+        put("SEARCH", "cat", success("cat", "con mèo"));
+        put("SEARCH", "dog", success("dog", "con chó"));
+        cache.invalidate("CAT", List.of("con mèo"));
+        assertNull(get("SEARCH", "cat"));
+        assertNotNull(get("SEARCH", "dog"));
+    }
+
+    @Test
+    void invalidatesContainingSearchWhoseKeywordIsInTheNewWord() {
+        put("SEARCH_CONTAINING", "ook", success("book", "quyển sách"));
+        put("SEARCH_CONTAINING", "xyz", success("xyzzy", "từ lạ"));
+        cache.invalidate("cookie", List.of("bánh quy"));
+        assertNull(get("SEARCH_CONTAINING", "ook"));
+        assertNotNull(get("SEARCH_CONTAINING", "xyz"));
+    }
+
+    @Test
+    void vietnameseMatchIgnoresAccentsAndCase() {
+        put("SEARCH_VIETNAMESE", "con cho", success("dog", "con chó"));
+        put("SEARCH_VIETNAMESE_CONTAINING", "ĐẸP", success("pretty", "xinh đẹp"));
+        put("SEARCH_VIETNAMESE", "con mèo", success("cat", "con mèo"));
+        cache.invalidate("puppy", List.of("Con chó con", "đẹp"));
+        assertNull(get("SEARCH_VIETNAMESE", "con cho"));
+        assertNull(get("SEARCH_VIETNAMESE_CONTAINING", "ĐẸP"));
+        assertNotNull(get("SEARCH_VIETNAMESE", "con mèo"));
+    }
+
+    @Test
+    void deletedWordStillInvalidatesEntriesListingIt() {
+        put("SEARCH_VIETNAMESE", "con chó", success("dog", "con chó"));
+        // Từ đã bị xóa nên không còn nghĩa nào
+        cache.invalidate("dog", List.of());
+        assertNull(get("SEARCH_VIETNAMESE", "con chó"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        ResponseCache small = new ResponseCache(2, 1024 * 1024);
+        small.put("SEARCH", "a", success("a", "x"), small.generation());
+        small.put("SEARCH", "b", success("b", "x"), small.generation());
+        small.get("SEARCH", "a");
+        small.put("SEARCH", "c", success("c", "x"), small.generation());
+        assertNotNull(small.get("SEARCH", "a"));
+        assertNull(small.get("SEARCH", "b"));
+        assertNotNull(small.get("SEARCH", "c"));
+    }
+
+    @Test
+    void skipsResponseLargerThanByteLimit() {
+        ResponseCache tiny = new ResponseCache(100, 256);
+        List<String> big = success("hello", "x".repeat(1000));
+        tiny.put("SEARCH", "hello", big, tiny.generation());
+        assertNull(tiny.get("SEARCH", "hello"));
+    }
+}